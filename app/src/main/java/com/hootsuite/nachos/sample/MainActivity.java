@@ -2,6 +2,7 @@ package com.hootsuite.nachos.sample;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.appcompat.app.AlertDialog;
@@ -11,6 +12,7 @@ import android.text.Spanned;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ArrayAdapter;
 import android.widget.TextView;
 
@@ -22,7 +24,7 @@ import com.hootsuite.nachos.chip.ChipSpanChipCreator;
 import com.hootsuite.nachos.terminator.ChipTerminatorHandler;
 import com.hootsuite.nachos.tokenizer.SpanChipTokenizer;
 import com.hootsuite.nachos.validator.ChipifyingNachoValidator;
-import com.hootsuite.nachos.validator.IllegalCharacterIdentifier;
+import com.hootsuite.nachos.validator.IllegalCharacterSet;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -41,6 +43,7 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        final long createTime = SystemClock.elapsedRealtime();
         setContentView(R.layout.activity_main);
         
         // Initialize views
@@ -49,6 +52,16 @@ public class MainActivity extends AppCompatActivity {
         mNachoTextViewWithIcons = findViewById(R.id.nacho_text_view_with_icons);
         mNachoTextViewWithIcons2 = findViewById(R.id.nacho_text_view_with_icons_2);
 
+        // Log how long it takes for the chips to be ready for the first frame
+        mNachoTextView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                mNachoTextView.getViewTreeObserver().removeOnPreDrawListener(this);
+                Log.d(TAG, "Time to first frame: " + (SystemClock.elapsedRealtime() - createTime) + "ms");
+                return true;
+            }
+        });
+
         // Set up click listeners
         findViewById(R.id.list_chip_values).setOnClickListener(new View.OnClickListener() {
             @Override
@@ -91,7 +104,7 @@ public class MainActivity extends AppCompatActivity {
         mNachoTextViewWithIcons.setChipTokenizer(new SpanChipTokenizer<>(this, new ChipSpanChipCreator() {
             @Override
             public ChipSpan createChip(@NonNull Context context, @NonNull CharSequence text, Object data) {
-                return new ChipSpan(context, text, ContextCompat.getDrawable(MainActivity.this, R.mipmap.ic_launcher), data);
+                return new ChipSpan(getChipStyle(context), text, ContextCompat.getDrawable(MainActivity.this, R.mipmap.ic_launcher), data);
             }
 
             @Override
@@ -102,7 +115,7 @@ public class MainActivity extends AppCompatActivity {
         mNachoTextViewWithIcons2.setChipTokenizer(new SpanChipTokenizer<>(this, new ChipSpanChipCreator() {
             @Override
             public ChipSpan createChip(@NonNull Context context, @NonNull CharSequence text, Object data) {
-                return new ChipSpan(context, text, ContextCompat.getDrawable(MainActivity.this, R.mipmap.ic_launcher), data);
+                return new ChipSpan(getChipStyle(context), text, ContextCompat.getDrawable(MainActivity.this, R.mipmap.ic_launcher), data);
             }
 
             @Override
@@ -115,12 +128,12 @@ public class MainActivity extends AppCompatActivity {
     private void setupChipTextView(NachoTextView nachoTextView) {
         ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, SUGGESTIONS);
         nachoTextView.setAdapter(adapter);
-        nachoTextView.setIllegalCharacterIdentifier(new IllegalCharacterIdentifier() {
-            @Override
-            public boolean isCharacterIllegal(Character c) {
-                return !c.toString().matches("[a-z0-9 ]");
-            }
-        });
+        // Only lowercase letters, digits and spaces are allowed
+        nachoTextView.setIllegalCharacterIdentifier(new IllegalCharacterSet.Builder()
+                .addRange('a', 'z')
+                .addRange('0', '9')
+                .add(' ')
+                .buildComplement());
         nachoTextView.addChipTerminator('\n', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_ALL);
         nachoTextView.addChipTerminator(' ', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
         nachoTextView.addChipTerminator(';', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_CURRENT_TOKEN);
@@ -0,0 +1,247 @@
+package com.hootsuite.nachos;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hootsuite.nachos.chip.ChipInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The difference between two lists of chips, used to update the chips in a {@link NachoTextView} with as few edits as possible. Two chips are the
+ * same if they have the same (trimmed) text and equal data.
+ * <p>
+ *     The chips kept in place are a longest common subsequence of the two lists, found with Myers' algorithm (which takes O((N + M) * D) time
+ *     for N old chips, M new chips and D differences) after skipping any common prefix and suffix. The remaining old chips are removed and the
+ *     remaining new chips are inserted, except that a removed chip that is the same as an inserted chip is moved rather than recreated.
+ * </p>
+ * <p>
+ *     Backtracking through the edit path keeps O(D^2) state, so the search gives up once the lists differ by more than
+ *     {@link #MAX_EDIT_DISTANCE} chips. Lists that different are cheaper to replace outright than to edit chip by chip anyway.
+ * </p>
+ */
+final class ChipListDiff {
+
+    /**
+     * The largest number of inserted plus removed chips that {@link #diff(List, List)} will search for
+     */
+    static final int MAX_EDIT_DISTANCE = 1000;
+
+    private static final int NONE = -1;
+
+    // For each old chip, the index of the new chip it is kept as (or NONE if it is removed)
+    private final int[] mOldToNew;
+    // For each new chip, the index of the old chip kept as it (or NONE if it is inserted)
+    private final int[] mNewToOld;
+    // For each new chip that is inserted, the index of a removed old chip that can be moved into its place (or NONE)
+    private final int[] mNewMovedFromOld;
+    // For each old chip, whether it is moved to the position of an inserted chip
+    private final boolean[] mOldMoved;
+
+    private final String[] mOldTexts;
+    private final String[] mNewTexts;
+    private final List<ChipInfo> mOldChips;
+    private final List<ChipInfo> mNewChips;
+
+    private ChipListDiff(@NonNull List<ChipInfo> oldChips, @NonNull List<ChipInfo> newChips) {
+        mOldChips = oldChips;
+        mNewChips = newChips;
+        mOldTexts = trimmedTexts(oldChips);
+        mNewTexts = trimmedTexts(newChips);
+        mOldToNew = new int[oldChips.size()];
+        mNewToOld = new int[newChips.size()];
+        mNewMovedFromOld = new int[newChips.size()];
+        mOldMoved = new boolean[oldChips.size()];
+        Arrays.fill(mOldToNew, NONE);
+        Arrays.fill(mNewToOld, NONE);
+        Arrays.fill(mNewMovedFromOld, NONE);
+    }
+
+    /**
+     * Finds the difference between {@code oldChips} and {@code newChips}.
+     *
+     * @return the difference, or null if the lists differ by more than {@link #MAX_EDIT_DISTANCE} chips
+     */
+    @Nullable
+    static ChipListDiff diff(@NonNull List<ChipInfo> oldChips, @NonNull List<ChipInfo> newChips) {
+        ChipListDiff diff = new ChipListDiff(oldChips, newChips);
+        if (!diff.matchCommonSubsequence()) {
+            return null;
+        }
+        diff.matchMoves();
+        return diff;
+    }
+
+    /**
+     * @return the index of the new chip that the old chip at {@code oldIndex} is kept as, or -1 if it is removed
+     */
+    int getNewIndex(int oldIndex) {
+        return mOldToNew[oldIndex];
+    }
+
+    /**
+     * @return the index of the old chip that is kept as the new chip at {@code newIndex}, or -1 if it is inserted
+     */
+    int getOldIndex(int newIndex) {
+        return mNewToOld[newIndex];
+    }
+
+    /**
+     * @return the index of the removed old chip that can be moved to where the new chip at {@code newIndex} is inserted, or -1 if the new chip
+     * must be created
+     */
+    int getMovedFromIndex(int newIndex) {
+        return mNewMovedFromOld[newIndex];
+    }
+
+    /**
+     * @return true if the old chip at {@code oldIndex} is removed from its position but moved to the position of an inserted chip
+     */
+    boolean isMoved(int oldIndex) {
+        return mOldMoved[oldIndex];
+    }
+
+    private boolean isSame(int oldIndex, int newIndex) {
+        return mOldTexts[oldIndex].equals(mNewTexts[newIndex])
+                && Objects.equals(mOldChips.get(oldIndex).getData(), mNewChips.get(newIndex).getData());
+    }
+
+    private void match(int oldIndex, int newIndex) {
+        mOldToNew[oldIndex] = newIndex;
+        mNewToOld[newIndex] = oldIndex;
+    }
+
+    /**
+     * @return false if the edit path is longer than {@link #MAX_EDIT_DISTANCE}
+     */
+    private boolean matchCommonSubsequence() {
+        int oldEnd = mOldTexts.length;
+        int newEnd = mNewTexts.length;
+
+        // Skip the common prefix and suffix, which is usually most of the list
+        int start = 0;
+        while (start < oldEnd && start < newEnd && isSame(start, start)) {
+            match(start, start);
+            start++;
+        }
+        while (oldEnd > start && newEnd > start && isSame(oldEnd - 1, newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+            match(oldEnd, newEnd);
+        }
+        if (start == oldEnd || start == newEnd) {
+            return true;
+        }
+
+        int n = oldEnd - start;
+        int m = newEnd - start;
+        if (Math.abs(n - m) > MAX_EDIT_DISTANCE) {
+            return false;
+        }
+        int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        // v[k + max] is the furthest x reached on diagonal k (where k = x - y)
+        int[] v = new int[2 * max + 2];
+        // The part of v covering diagonals [-d, d] after each step d, used to backtrack through the edit path
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[k - 1 + max] < v[k + 1 + max])) ? v[k + 1 + max] : v[k - 1 + max] + 1;
+                int y = x - k;
+                while (x < n && y < m && isSame(start + x, start + y)) {
+                    x++;
+                    y++;
+                }
+                v[k + max] = x;
+            }
+            trace.add(Arrays.copyOfRange(v, max - d, max + d + 1));
+            if (v[n - m + max] >= n && Math.abs(n - m) <= d) {
+                backtrack(trace, start, n, m);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks the edit path found by {@link #matchCommonSubsequence()} backwards from its end, matching the chips along each diagonal.
+     */
+    private void backtrack(List<int[]> trace, int start, int n, int m) {
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            // previous[i + d - 1] is the furthest x on diagonal i after step d - 1
+            int previousK = (k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1])) ? k + 1 : k - 1;
+            int previousX = previous[previousK + d - 1];
+            int previousY = previousX - previousK;
+            // The path took a single step from (previousX, previousY) and then followed the diagonal
+            int diagonalStartX = (previousK == k + 1) ? previousX : previousX + 1;
+            while (x > diagonalStartX) {
+                x--;
+                y--;
+                match(start + x, start + y);
+            }
+            x = previousX;
+            y = previousY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            match(start + x, start + y);
+        }
+    }
+
+    /**
+     * Pairs each inserted chip with a removed chip that is the same, if there is one, so that the removed chip can be moved instead.
+     */
+    private void matchMoves() {
+        Map<String, List<Integer>> removedByText = new HashMap<>();
+        for (int i = 0; i < mOldToNew.length; i++) {
+            if (mOldToNew[i] == NONE) {
+                List<Integer> removed = removedByText.get(mOldTexts[i]);
+                if (removed == null) {
+                    removed = new ArrayList<>(1);
+                    removedByText.put(mOldTexts[i], removed);
+                }
+                removed.add(i);
+            }
+        }
+        if (removedByText.isEmpty()) {
+            return;
+        }
+
+        for (int j = 0; j < mNewToOld.length; j++) {
+            if (mNewToOld[j] != NONE) {
+                continue;
+            }
+            List<Integer> removed = removedByText.get(mNewTexts[j]);
+            if (removed == null) {
+                continue;
+            }
+            for (int r = 0; r < removed.size(); r++) {
+                int oldIndex = removed.get(r);
+                if (isSame(oldIndex, j)) {
+                    mNewMovedFromOld[j] = oldIndex;
+                    mOldMoved[oldIndex] = true;
+                    removed.remove(r);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static String[] trimmedTexts(List<ChipInfo> chips) {
+        String[] texts = new String[chips.size()];
+        for (int i = 0; i < texts.length; i++) {
+            CharSequence text = chips.get(i).getText();
+            texts[i] = (text != null) ? text.toString().trim() : "";
+        }
+        return texts;
+    }
+}
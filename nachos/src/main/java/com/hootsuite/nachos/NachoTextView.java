@@ -7,6 +7,9 @@ import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Parcel;
+import android.os.Parcelable;
 import androidx.annotation.ColorInt;
 import androidx.annotation.ColorRes;
 import androidx.annotation.DimenRes;
@@ -16,6 +19,9 @@ import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import android.text.Editable;
 import android.text.Layout;
+import android.text.NoCopySpan;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
 import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.util.AttributeSet;
@@ -40,16 +46,22 @@ import com.hootsuite.nachos.terminator.ChipTerminatorHandler;
 import com.hootsuite.nachos.terminator.DefaultChipTerminatorHandler;
 import com.hootsuite.nachos.tokenizer.ChipTokenizer;
 import com.hootsuite.nachos.tokenizer.SpanChipTokenizer;
+import com.hootsuite.nachos.tokenizer.TokenRanges;
 import com.hootsuite.nachos.validator.ChipifyingNachoValidator;
 import com.hootsuite.nachos.validator.IllegalCharacterIdentifier;
 import com.hootsuite.nachos.validator.NachoValidator;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * An editable TextView extending {@link MultiAutoCompleteTextView} that supports "chipifying" pieces of text and displaying suggestions for segments of the text.
@@ -152,6 +164,8 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
     private boolean mEditChipOnTouchEnabled;
     private boolean mMoveChipToEndOnEdit;
     private boolean mChipifyUnterminatedTokensOnEdit;
+    // The chips whose state was changed from the default by a touch, so that clearing the states only redraws those chips
+    private final List<Chip> mChipsWithState = new ArrayList<>();
 
     // Text entry
     @Nullable
@@ -170,12 +184,36 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
     private int mTextChangedStart;
     private int mTextChangedEnd;
     private boolean mIsPasteEvent;
+    // Incremented on every change to the text so that asynchronous work can tell whether the text has changed since it started
+    private int mTextVersion;
 
-    // Measurement
-    private boolean mMeasured;
+    // Asynchronous chipification
+    @Nullable
+    private Executor mChipificationExecutor;
+    private int mAsyncChipificationThreshold;
+
+    // Progressive chip loading
+    @Nullable
+    private ChipLoader mChipLoader;
+
+    // Chip collapsing
+    // The data of the summary chip, used to find it again if the chip is recreated (when the chips are reconfigured for instance)
+    private static final Object SUMMARY_CHIP_DATA = new Object();
+    private int mMaxCollapsedChips = -1;
+    // The chips hidden behind the summary chip, in the order they appeared in the text
+    private final List<ChipInfo> mCollapsedChips = new ArrayList<>();
+    @Nullable
+    private Chip mSummaryChip;
 
-    // Layout
-    private boolean mLayoutComplete;
+    // Chip invalidation
+    private boolean mChipInvalidationPending;
+    private int mConfiguredViewWidth = -1;
+    private final Runnable mInvalidateChipsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushChipInvalidation();
+        }
+    };
 
     public NachoTextView(Context context) {
         super(context);
@@ -237,10 +275,10 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
-        if (!mMeasured && getWidth() > 0) {
-            // Refresh the tokenizer for width changes
-            invalidateChips();
-            mMeasured = true;
+        int measuredWidth = getMeasuredWidth();
+        if (measuredWidth > 0 && (mChipInvalidationPending || measuredWidth != mConfiguredViewWidth)) {
+            // Refresh the tokenizer for width changes (and any pending configuration changes)
+            applyChipConfiguration(measuredWidth);
         }
     }
 
@@ -248,9 +286,8 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
 
-        if (!mLayoutComplete) {
+        if (mChipInvalidationPending || getWidth() != mConfiguredViewWidth) {
             invalidateChips();
-            mLayoutComplete = true;
         }
     }
 
@@ -261,7 +298,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
      */
     private void updatePadding() {
         if (mChipHeight != -1) {
-            boolean chipsArePresent = !getAllChips().isEmpty();
+            boolean chipsArePresent = mChipTokenizer != null && mChipTokenizer.countChips(getText()) > 0;
             if (!chipsArePresent && mUsingDefaultPadding) {
                 mUsingDefaultPadding = false;
                 Paint paint = getPaint();
@@ -336,7 +373,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     public void setChipHorizontalSpacing(@DimenRes int chipHorizontalSpacingResId) {
         mChipHorizontalSpacing = getContext().getResources().getDimensionPixelSize(chipHorizontalSpacingResId);
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     public ColorStateList getChipBackground() {
@@ -349,7 +386,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     public void setChipBackground(ColorStateList chipBackground) {
         mChipBackground = chipBackground;
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     /**
@@ -376,7 +413,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
      */
     public void setChipCornerRadius(@Dimension int chipCornerRadius) {
         mChipCornerRadius = chipCornerRadius;
-        invalidateChips();
+        requestChipInvalidation();
     }
 
 
@@ -390,7 +427,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     public void setChipTextColor(@ColorInt int chipTextColor) {
         mChipTextColor = chipTextColor;
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     public int getChipTextSize() {
@@ -399,7 +436,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     public void setChipTextSize(@DimenRes int chipTextSizeResId) {
         mChipTextSize = getContext().getResources().getDimensionPixelSize(chipTextSizeResId);
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     public int getChipHeight() {
@@ -408,7 +445,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     public void setChipHeight(@DimenRes int chipHeightResId) {
         mChipHeight = getContext().getResources().getDimensionPixelSize(chipHeightResId);
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     public int getChipVerticalSpacing() {
@@ -417,7 +454,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     public void setChipVerticalSpacing(@DimenRes int chipVerticalSpacingResId) {
         mChipVerticalSpacing = getContext().getResources().getDimensionPixelSize(chipVerticalSpacingResId);
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     @Nullable
@@ -432,13 +469,15 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
      * @param chipTokenizer the {@link ChipTokenizer} to set
      */
     public void setChipTokenizer(@Nullable ChipTokenizer chipTokenizer) {
+        // The summary chip was created by the previous tokenizer
+        expandChips();
         mChipTokenizer = chipTokenizer;
         if (mChipTokenizer != null) {
             setTokenizer(new ChipTokenizerWrapper(mChipTokenizer));
         } else {
             setTokenizer(null);
         }
-        invalidateChips();
+        requestChipInvalidation();
     }
 
     public void setOnChipClickListener(@Nullable OnChipClickListener onChipClickListener) {
@@ -498,15 +537,51 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     /**
      * Applies any updated configuration parameters to any existing chips and all future chips in the text view.
+     * <p>
+     *     Note: The chip style setters of this class do not call this method directly. Instead they schedule a single call to it before the next
+     *     frame, so that changing several attributes at once only updates the chips once. The scheduled changes are also applied before any chip is
+     *     created, so new chips always get the current configuration. Call this method to apply those changes immediately.
+     * </p>
      *
      * @see ChipTokenizer#applyConfiguration(Editable, ChipConfiguration)
      */
     public void invalidateChips() {
+        applyChipConfiguration(getWidth());
+    }
+
+    /**
+     * Schedules {@link #invalidateChips()} to run before the next frame, unless it is already scheduled. If the chips are invalidated in the
+     * meantime (by measuring or laying out the view for instance, or before chips are created, see {@link #flushChipInvalidation()}), the
+     * scheduled invalidation does nothing.
+     */
+    private void requestChipInvalidation() {
+        if (!mChipInvalidationPending) {
+            mChipInvalidationPending = true;
+            postOnAnimation(mInvalidateChipsRunnable);
+        }
+    }
+
+    /**
+     * Applies the configuration right away if a chip invalidation is scheduled, so that chips about to be created don't get the previous
+     * configuration. This must be called before creating chips.
+     */
+    private void flushChipInvalidation() {
+        if (mChipInvalidationPending) {
+            invalidateChips();
+        }
+    }
+
+    private void applyChipConfiguration(int viewWidth) {
+        mChipInvalidationPending = false;
+        mConfiguredViewWidth = viewWidth;
+
+        // This may run in the middle of an unwatched text change (when flushed right before creating a chip), which must not be ended here
+        boolean wasIgnoringTextChangedEvents = mIgnoreTextChangedEvents;
         beginUnwatchedTextChange();
 
         if (mChipTokenizer != null) {
             Editable text = getText();
-            int availableWidth = getWidth() - getCompoundPaddingLeft() - getCompoundPaddingRight();
+            int availableWidth = viewWidth - getCompoundPaddingLeft() - getCompoundPaddingRight();
             ChipConfiguration configuration = new ChipConfiguration(
                     mChipHorizontalSpacing,
                     mChipBackground,
@@ -520,7 +595,9 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
             mChipTokenizer.applyConfiguration(text, configuration);
         }
 
-        endUnwatchedTextChange();
+        if (!wasIgnoringTextChangedEvents) {
+            endUnwatchedTextChange();
+        }
     }
 
     /**
@@ -581,6 +658,147 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         endUnwatchedTextChange();
     }
 
+    /**
+     * Enables handling the chip terminators in large pastes on a background thread. When text of at least {@code minPasteLength} characters is
+     * pasted, the pasted text is shown as is while the chip terminators are found and the tokens to chipify are worked out in a plain text
+     * snapshot of the text using {@code executor}. The chips are then created on the main thread and only the part of the text that changed is
+     * replaced, unless the text was changed in the meantime, in which case the result is dropped and the pasted text is left unchipified (to be
+     * chipified later, by validation for instance). If {@code executor} rejects the work (because it has been shut down for instance), the paste
+     * is handled on the main thread.
+     * <p>
+     *     Note: Only the token finding methods of the {@link ChipTokenizer} ({@link ChipTokenizer#findTokenStart(CharSequence, int)} and
+     *     {@link ChipTokenizer#findTokenEnd(CharSequence, int)}) and the {@link ChipTerminatorHandler} are used on {@code executor}, so they must
+     *     only read the text they are given and the handler must not be reconfigured while a paste is being handled. Chips are never created or
+     *     configured off of the main thread. Illegal characters are still removed synchronously.
+     * </p>
+     *
+     * @param executor       the executor to handle large pastes on
+     * @param minPasteLength the length at which a paste is handled on {@code executor} rather than on the main thread
+     * @see #disableAsyncChipification()
+     */
+    public void enableAsyncChipification(@NonNull Executor executor, int minPasteLength) {
+        mChipificationExecutor = executor;
+        mAsyncChipificationThreshold = minPasteLength;
+    }
+
+    /**
+     * Disables handling the chip terminators in large pastes on a background thread. To re-enable this behavior call
+     * {@link #enableAsyncChipification(Executor, int)}.
+     *
+     * @see #enableAsyncChipification(Executor, int)
+     */
+    public void disableAsyncChipification() {
+        mChipificationExecutor = null;
+    }
+
+    private boolean shouldChipifyAsync(int start, int end) {
+        return mIsPasteEvent && mChipificationExecutor != null && (end - start) >= mAsyncChipificationThreshold;
+    }
+
+    /**
+     * Handles the chip terminators between {@code start} and {@code end} in a plain text snapshot of the text on the chipification executor
+     * (see {@link PendingChipTokenizer}), then commits the result on the main thread if the text hasn't changed since.
+     *
+     * @return true if the chip terminators will be handled asynchronously, false if they must be handled synchronously instead
+     */
+    private boolean chipifyAsync(final int start, final int end) {
+        final String snapshot = getText().toString();
+        if (snapshot.indexOf(PendingChipTokenizer.PENDING_CHIP_CHARACTER) != -1) {
+            // The pending chips couldn't be told apart from the text
+            return false;
+        }
+        final ChipTokenizer chipTokenizer = mChipTokenizer;
+        final ChipTerminatorHandler chipTerminatorHandler = mChipTerminatorHandler;
+        final int textVersion = mTextVersion;
+
+        try {
+            mChipificationExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final PendingChipTokenizer pendingChipTokenizer = new PendingChipTokenizer(chipTokenizer);
+                    final Editable result = new SpannableStringBuilder(snapshot);
+                    final int newSelectionIndex = chipTerminatorHandler.findAndHandleChipTerminators(pendingChipTokenizer, result, start, end, true);
+                    post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (textVersion != mTextVersion || chipTokenizer != mChipTokenizer) {
+                                // The text has changed so the result no longer applies
+                                return;
+                            }
+                            commitAsyncChipification(snapshot, result, newSelectionIndex, pendingChipTokenizer.isTerminateAllTokensRequested());
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the part of the text that differs between {@code snapshot} and {@code result}, creating a chip for each pending chip in
+     * {@code result}.
+     *
+     * @param newSelectionIndex  the selection returned by the {@link ChipTerminatorHandler} (in {@code result}), or -1 to leave it as is
+     * @param terminateAllTokens true if all the tokens in the text should be terminated as well
+     */
+    private void commitAsyncChipification(String snapshot, Spanned result, int newSelectionIndex, boolean terminateAllTokens) {
+        flushChipInvalidation();
+        String resultText = result.toString();
+        int snapshotLength = snapshot.length();
+        int resultLength = resultText.length();
+        int prefixLength = 0;
+        int maxLength = Math.min(snapshotLength, resultLength);
+        while (prefixLength < maxLength && snapshot.charAt(prefixLength) == resultText.charAt(prefixLength)) {
+            prefixLength++;
+        }
+        int suffixLength = 0;
+        while (suffixLength < maxLength - prefixLength
+                && snapshot.charAt(snapshotLength - 1 - suffixLength) == resultText.charAt(resultLength - 1 - suffixLength)) {
+            suffixLength++;
+        }
+
+        Editable text = getText();
+        beginUnwatchedTextChange();
+        if (prefixLength < snapshotLength - suffixLength || prefixLength < resultLength - suffixLength) {
+            // Pending chips never match the snapshot so they are all in the changed part of the result
+            PendingChipTokenizer.PendingChip[] pendingChips = result.getSpans(prefixLength, resultLength - suffixLength,
+                    PendingChipTokenizer.PendingChip.class);
+            Arrays.sort(pendingChips, new Comparator<PendingChipTokenizer.PendingChip>() {
+                @Override
+                public int compare(PendingChipTokenizer.PendingChip lhs, PendingChipTokenizer.PendingChip rhs) {
+                    return result.getSpanStart(lhs) - result.getSpanStart(rhs);
+                }
+            });
+
+            SpannableStringBuilder changedText = new SpannableStringBuilder();
+            int copiedEnd = prefixLength;
+            int selectionIndex = newSelectionIndex;
+            for (PendingChipTokenizer.PendingChip pendingChip : pendingChips) {
+                int pendingStart = result.getSpanStart(pendingChip);
+                changedText.append(resultText, copiedEnd, pendingStart);
+                CharSequence chippedText = mChipTokenizer.terminateToken(pendingChip.getText(), pendingChip.getData());
+                changedText.append(chippedText);
+                if (pendingStart < newSelectionIndex) {
+                    selectionIndex += chippedText.length() - 1;
+                }
+                copiedEnd = pendingStart + 1;
+            }
+            changedText.append(resultText, copiedEnd, resultLength - suffixLength);
+            text.replace(prefixLength, snapshotLength - suffixLength, changedText);
+            newSelectionIndex = selectionIndex;
+        }
+        if (terminateAllTokens) {
+            mChipTokenizer.terminateAllTokens(text);
+            newSelectionIndex = text.length();
+        }
+        if (newSelectionIndex > 0) {
+            setSelection(newSelectionIndex);
+        }
+        endUnwatchedTextChange();
+    }
+
     @Override
     public boolean onTouchEvent(@NonNull MotionEvent event) {
         boolean wasHandled = false;
@@ -588,6 +806,8 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         Chip touchedChip = findTouchedChip(event);
         if (touchedChip != null && isFocused() && singleTapDetector.onTouchEvent(event)) {
             touchedChip.setState(View.PRESSED_SELECTED_STATE_SET);
+            mChipsWithState.add(touchedChip);
+            invalidateChip(touchedChip);
             if (onChipClicked(touchedChip)) {
                 wasHandled = true;
             }
@@ -617,8 +837,13 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
         Editable text = getText();
         int offset = getOffsetForPosition(event.getX(), event.getY());
-        List<Chip> chips = getAllChips();
+        // Only the chips touching the offset can have been touched (at most two: one ending at the offset and one starting at it), and the
+        // tokenizer can find those without looking at every chip
+        Chip[] chips = mChipTokenizer.findAllChips(offset, offset, text);
         for (Chip chip : chips) {
+            if (chip == mSummaryChip) {
+                continue;
+            }
             int chipStart = mChipTokenizer.findChipStart(chip, text);
             int chipEnd = mChipTokenizer.findChipEnd(chip, text); // This is actually the index of the character just past the end of the chip
             // When a touch event occurs getOffsetForPosition will either return the index of the first character of the span or the index of the
@@ -662,10 +887,30 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         return layout.getPrimaryHorizontal(index);
     }
 
+    /**
+     * Resets the state of every chip, including chips the app put in a state through {@link Chip#setState(int[])}. Only the chips pressed by a
+     * touch are redrawn here.
+     */
     private void clearChipStates() {
         for (Chip chip : getAllChips()) {
             chip.setState(View.EMPTY_STATE_SET);
         }
+        for (Chip chip : mChipsWithState) {
+            invalidateChip(chip);
+        }
+        mChipsWithState.clear();
+    }
+
+    /**
+     * Redraws a chip whose state changed. Setting a chip's span again at the same position makes the text view re-render only the block of text
+     * containing the chip rather than all of the text.
+     */
+    private void invalidateChip(Chip chip) {
+        Editable text = getText();
+        int chipStart = text.getSpanStart(chip);
+        if (chipStart >= 0) {
+            text.setSpan(chip, chipStart, text.getSpanEnd(chip), text.getSpanFlags(chip));
+        }
     }
 
     /**
@@ -747,6 +992,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
             return;
         }
 
+        flushChipInvalidation();
         CharSequence text = getText();
         if (!TextUtils.isEmpty(text) && !mNachoValidator.isValid(mChipTokenizer, text)) {
             setRawText(mNachoValidator.fixText(mChipTokenizer, text));
@@ -787,49 +1033,670 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
      * @param chipValues the list of strings to chipify and set as the contents of the text view or null to clear the text view
      */
     public void setText(@Nullable List<String> chipValues) {
+        List<ChipInfo> chips = null;
+        if (chipValues != null) {
+            chips = new ArrayList<>(chipValues.size());
+            for (String chipValue : chipValues) {
+                chips.add(new ChipInfo(chipValue, null));
+            }
+        }
+        setTextWithChips(chips);
+    }
+
+    /**
+     * Sets the contents of this text view to contain a chip for each of the provided {@link ChipInfo}s. The text for all of the chips is built up
+     * front and swapped into the text view in a single edit, so the text is only laid out once regardless of the number of chips.
+     *
+     * @param chips the text and data of the chips to set as the contents of the text view or null to clear the text view
+     */
+    public void setTextWithChips(@Nullable List<ChipInfo> chips) {
         if (mChipTokenizer == null) {
             return;
         }
+        cancelChipLoading();
+        flushChipInvalidation();
         beginUnwatchedTextChange();
 
+        mCollapsedChips.clear();
+        mSummaryChip = null;
         Editable text = getText();
-        text.clear();
+        CharSequence chippedText;
+        if (chips == null) {
+            chippedText = "";
+        } else if (shouldCollapseChips() && chips.size() > mMaxCollapsedChips) {
+            // Only create the chips that will be shown
+            SpannableStringBuilder collapsedText = new SpannableStringBuilder(mChipTokenizer.terminateTokens(chips.subList(0, mMaxCollapsedChips)));
+            mCollapsedChips.addAll(chips.subList(mMaxCollapsedChips, chips.size()));
+            chippedText = collapsedText.append(createSummaryChip());
+        } else {
+            chippedText = mChipTokenizer.terminateTokens(chips);
+        }
+        text.replace(0, text.length(), chippedText);
+        setSelection(text.length());
 
-        if (chipValues != null) {
-            for (String chipValue : chipValues) {
-                CharSequence chippedText = mChipTokenizer.terminateToken(chipValue, null);
-                text.append(chippedText);
+        endUnwatchedTextChange();
+    }
+
+    /**
+     * Updates the chips in this text view to match the provided {@link ChipInfo}s, editing only the chips that differ rather than replacing all of
+     * the text like {@link #setTextWithChips(List)} does. This is meant for re-syncing the chips with an external source that usually changes
+     * little between updates: the unchanged chips keep their spans, any unterminated tokens are left alone and the selection stays where it was.
+     * <p>
+     *     Two chips are considered the same if they have the same text (ignoring leading/trailing whitespace) and equal data (see
+     *     {@link Object#equals(Object)}). The current chips are diffed against {@code chips} (see {@link ChipListDiff}) and the edits are
+     *     applied from the end of the text to the start: chips that are no longer present are removed, new chips are created and inserted
+     *     after the preceding chip, and chips that have only changed position are moved (keeping the same {@link Chip} instance) rather than
+     *     being recreated. Like {@link #setTextWithChips(List)}, this doesn't notify the {@link OnChipRemoveListener}.
+     * </p>
+     * <p>
+     *     While the chips are collapsed (see {@link #enableChipCollapsing(int)}) the chips hidden behind the summary chip are diffed as well, but
+     *     changes to them (including new chips inserted after the last visible chip) only update the hidden chips and the summary chip, without
+     *     creating any chips.
+     * </p>
+     * <p>
+     *     If the chips differ by more than a thousand insertions and removals, this falls back to replacing all of the text like
+     *     {@link #setTextWithChips(List)}.
+     * </p>
+     *
+     * @param chips the text and data of the chips that this text view should contain, or null to remove all of the chips
+     */
+    public void updateTextWithChips(@Nullable List<ChipInfo> chips) {
+        if (mChipTokenizer == null) {
+            return;
+        }
+        if (chips == null) {
+            chips = Collections.emptyList();
+        }
+        cancelChipLoading();
+        flushChipInvalidation();
+
+        Editable text = getText();
+        Chip[] allChips = mChipTokenizer.findAllChips(0, text.length(), text);
+        boolean collapsed = hasSummaryChip();
+        // The old chips are the visible chips with the hidden chips in place of the summary chip, whose positions are [hiddenStart, hiddenEnd)
+        int hiddenStart = collapsed ? Arrays.asList(allChips).indexOf(mSummaryChip) : allChips.length;
+        int hiddenEnd = collapsed ? hiddenStart + mCollapsedChips.size() : hiddenStart;
+        int oldCount = allChips.length + hiddenEnd - hiddenStart - (collapsed ? 1 : 0);
+
+        // Null for the hidden chips
+        Chip[] oldChips = new Chip[oldCount];
+        List<ChipInfo> oldChipInfos = new ArrayList<>(oldCount);
+        int[] oldStarts = new int[oldCount];
+        int[] oldEnds = new int[oldCount];
+        for (int i = 0, chipIndex = 0; i < oldCount; i++) {
+            if (i >= hiddenStart && i < hiddenEnd) {
+                oldChipInfos.add(mCollapsedChips.get(i - hiddenStart));
+                continue;
+            }
+            if (chipIndex == hiddenStart && collapsed) {
+                // Skip the summary chip
+                chipIndex++;
+            }
+            Chip chip = allChips[chipIndex++];
+            oldChips[i] = chip;
+            oldChipInfos.add(new ChipInfo(chip.getText(), chip.getData()));
+            oldStarts[i] = mChipTokenizer.findChipStart(chip, text);
+            oldEnds[i] = mChipTokenizer.findChipEnd(chip, text);
+        }
+        ChipListDiff diff = ChipListDiff.diff(oldChipInfos, chips);
+        if (diff == null) {
+            // The chips have changed too much to be worth editing one by one
+            setTextWithChips(chips);
+            return;
+        }
+
+        // Work out which of the new chips are hidden: those kept from the hidden chips and those inserted after the last visible chip before the
+        // summary chip (or among the hidden chips)
+        boolean[] newHidden = new boolean[chips.size()];
+        List<ChipInfo> newCollapsedChips = new ArrayList<>();
+        int previousOldIndex = -1;
+        for (int j = 0; j < chips.size(); j++) {
+            int oldIndex = diff.getOldIndex(j);
+            if (oldIndex >= 0) {
+                previousOldIndex = oldIndex;
+                newHidden[j] = oldIndex >= hiddenStart && oldIndex < hiddenEnd;
+            } else {
+                newHidden[j] = collapsed && previousOldIndex >= hiddenStart - 1 && previousOldIndex < hiddenEnd;
+            }
+            if (newHidden[j]) {
+                newCollapsedChips.add(chips.get(j));
             }
         }
-        setSelection(text.length());
 
+        // Only visible chips that stay visible can be moved. Keep their text so they can be reinserted after their old position has been edited
+        int[] reusedChipIndexes = new int[chips.size()];
+        boolean[] oldReused = new boolean[oldCount];
+        String[] movedChipTexts = new String[oldCount];
+        for (int j = 0; j < chips.size(); j++) {
+            int movedFromIndex = diff.getMovedFromIndex(j);
+            if (movedFromIndex >= 0 && oldChips[movedFromIndex] != null && !newHidden[j]) {
+                reusedChipIndexes[j] = movedFromIndex;
+                oldReused[movedFromIndex] = true;
+                movedChipTexts[movedFromIndex] = text.subSequence(oldStarts[movedFromIndex], oldEnds[movedFromIndex]).toString();
+            } else {
+                reusedChipIndexes[j] = -1;
+            }
+        }
+
+        beginUnwatchedTextChange();
+        // Working from the end of the text to the start means the recorded positions of the chips not yet visited stay valid
+        int firstChipStart = (allChips.length > 0) ? mChipTokenizer.findChipStart(allChips[0], text) : 0;
+        int oldIndex = oldCount - 1;
+        int newIndex = chips.size() - 1;
+        while (oldIndex >= 0 || newIndex >= 0) {
+            if (oldIndex >= 0 && oldChips[oldIndex] == null) {
+                // Hidden chips are updated separately
+                oldIndex--;
+            } else if (newIndex >= 0 && newHidden[newIndex]) {
+                newIndex--;
+            } else if (oldIndex >= 0 && diff.getNewIndex(oldIndex) < 0) {
+                if (!oldReused[oldIndex]) {
+                    text.removeSpan(oldChips[oldIndex]);
+                }
+                // A moved chip's span may already have been moved away, in which case only its old text is left to delete
+                text.delete(oldStarts[oldIndex], oldEnds[oldIndex]);
+                oldIndex--;
+            } else if (newIndex >= 0 && diff.getOldIndex(newIndex) < 0) {
+                int insertedEnd = newIndex + 1;
+                while (newIndex >= 0 && diff.getOldIndex(newIndex) < 0 && !newHidden[newIndex]) {
+                    newIndex--;
+                }
+                int insertionIndex = (oldIndex >= 0) ? oldEnds[oldIndex] : firstChipStart;
+                text.insert(insertionIndex, buildUpdatedChips(chips, newIndex + 1, insertedEnd, reusedChipIndexes, oldChips, movedChipTexts));
+            } else {
+                // The chip is kept as it is
+                oldIndex--;
+                newIndex--;
+            }
+        }
         endUnwatchedTextChange();
+
+        if (collapsed) {
+            updateCollapsedChips(newCollapsedChips);
+        } else if (shouldCollapseChips()) {
+            collapseChips();
+        }
     }
 
-    public void setTextWithChips(@Nullable List<ChipInfo> chips) {
+    /**
+     * Builds the text for the chips inserted by {@link #updateTextWithChips(List)} between {@code start} (inclusive) and {@code end} (exclusive)
+     * in {@code chips}, creating the new chips in batches and attaching the moved chips to their text.
+     */
+    private CharSequence buildUpdatedChips(List<ChipInfo> chips, int start, int end, int[] reusedChipIndexes, Chip[] oldChips,
+                                           String[] movedChipTexts) {
+        SpannableStringBuilder insertedText = new SpannableStringBuilder();
+        int createdStart = start;
+        for (int i = start; i < end; i++) {
+            int movedFromIndex = reusedChipIndexes[i];
+            if (movedFromIndex < 0) {
+                continue;
+            }
+            if (createdStart < i) {
+                insertedText.append(mChipTokenizer.terminateTokens(chips.subList(createdStart, i)));
+            }
+            int movedStart = insertedText.length();
+            insertedText.append(movedChipTexts[movedFromIndex]);
+            insertedText.setSpan(oldChips[movedFromIndex], movedStart, insertedText.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            createdStart = i + 1;
+        }
+        if (createdStart < end) {
+            insertedText.append(mChipTokenizer.terminateTokens(chips.subList(createdStart, end)));
+        }
+        return insertedText;
+    }
+
+    /**
+     * Replaces the chips hidden behind the summary chip by {@code collapsedChips} after {@link #updateTextWithChips(List)}. If visible chips were
+     * removed, hidden chips are shown in their place so that there are still {@code maxVisibleChips} visible chips (see
+     * {@link #enableChipCollapsing(int)}), and the summary chip is removed if no chips are left to hide.
+     */
+    private void updateCollapsedChips(List<ChipInfo> collapsedChips) {
+        Editable text = getText();
+        int visibleChipCount = mChipTokenizer.countChips(text) - 1;
+        int shownChipCount = Math.min(collapsedChips.size(), Math.max(0, mMaxCollapsedChips - visibleChipCount));
+        boolean changed = shownChipCount > 0 || !collapsedChips.equals(mCollapsedChips);
+
+        mCollapsedChips.clear();
+        mCollapsedChips.addAll(collapsedChips.subList(shownChipCount, collapsedChips.size()));
+        if (!changed) {
+            return;
+        }
+        if (shownChipCount == 0 && !mCollapsedChips.isEmpty()) {
+            updateSummaryChip();
+            return;
+        }
+
+        int summaryStart = mChipTokenizer.findChipStart(mSummaryChip, text);
+        int summaryEnd = mChipTokenizer.findChipEnd(mSummaryChip, text);
+        CharSequence updatedText = mChipTokenizer.terminateTokens(collapsedChips.subList(0, shownChipCount));
+        if (!mCollapsedChips.isEmpty()) {
+            updatedText = new SpannableStringBuilder(updatedText).append(createSummaryChip());
+        } else {
+            mSummaryChip = null;
+        }
+
+        beginUnwatchedTextChange();
+        text.replace(summaryStart, summaryEnd, updatedText);
+        endUnwatchedTextChange();
+    }
+
+    /**
+     * Sets the contents of this text view to contain a chip for each of the {@link ChipInfo}s provided by {@code chips}, creating the chips
+     * progressively rather than all at once. The text view is cleared immediately and then at most {@code chipsPerFrame} chips are created and
+     * inserted each frame, so the view stays responsive while a very large list (from a database cursor for instance) is loaded.
+     * <p>
+     *     The user can interact with the text view while the chips are loading; chips are always inserted after the previously loaded chips.
+     *     Loading stops once {@code chips} is exhausted, when {@link #cancelChipLoading()} is called, when the text is replaced or when any of the
+     *     setText methods of this class are called.
+     * </p>
+     *
+     * @param chips         the text and data of the chips to set as the contents of the text view, consumed on the main thread
+     * @param chipsPerFrame the maximum number of chips to create per frame
+     */
+    public void setTextWithChips(@NonNull Iterator<ChipInfo> chips, int chipsPerFrame) {
+        if (mChipTokenizer == null) {
+            return;
+        }
+        setTextWithChips((List<ChipInfo>) null);
+
+        Editable text = getText();
+        mChipLoader = new ChipLoader(chips, Math.max(1, chipsPerFrame));
+        text.setSpan(mChipLoader.mInsertionMarker, 0, 0, Spanned.SPAN_MARK_MARK);
+        mChipLoader.run();
+    }
+
+    /**
+     * Stops loading chips started through {@link #setTextWithChips(Iterator, int)}. The chips that were already loaded are kept.
+     */
+    public void cancelChipLoading() {
+        if (mChipLoader != null) {
+            mChipLoader.cancel();
+            mChipLoader = null;
+        }
+    }
+
+    /**
+     * Inserts a batch of chips each frame until its source of chips is exhausted.
+     */
+    private class ChipLoader implements Runnable {
+
+        private final Iterator<ChipInfo> mChips;
+        private final int mChipsPerFrame;
+        // Marks where the next batch of chips should be inserted
+        private final NoCopySpan mInsertionMarker = new NoCopySpan.Concrete();
+        private final List<ChipInfo> mBatch;
+        private boolean mCancelled;
+
+        ChipLoader(Iterator<ChipInfo> chips, int chipsPerFrame) {
+            mChips = chips;
+            mChipsPerFrame = chipsPerFrame;
+            mBatch = new ArrayList<>(chipsPerFrame);
+        }
+
+        @Override
+        public void run() {
+            Editable text = getText();
+            int insertionIndex = text.getSpanStart(mInsertionMarker);
+            if (mCancelled || mChipTokenizer == null || insertionIndex < 0) {
+                // Cancelled, or the text (and the marker with it) was replaced
+                finish(text);
+                return;
+            }
+            flushChipInvalidation();
+
+            while (mBatch.size() < mChipsPerFrame && mChips.hasNext()) {
+                mBatch.add(mChips.next());
+            }
+            if (!mBatch.isEmpty() && hasSummaryChip()) {
+                // The loaded chips are hidden behind the summary chip so there is no need to create them yet
+                mCollapsedChips.addAll(mBatch);
+                mBatch.clear();
+                updateSummaryChip();
+            } else if (!mBatch.isEmpty()) {
+                beginUnwatchedTextChange();
+                CharSequence chippedText = mChipTokenizer.terminateTokens(mBatch);
+                text.insert(insertionIndex, chippedText);
+                // Text inserted at a mark goes after it, so move the marker past the new chips
+                int newInsertionIndex = insertionIndex + chippedText.length();
+                text.setSpan(mInsertionMarker, newInsertionIndex, newInsertionIndex, Spanned.SPAN_MARK_MARK);
+                endUnwatchedTextChange();
+                mBatch.clear();
+                if (shouldCollapseChips()) {
+                    collapseChips();
+                }
+            }
+
+            if (mChips.hasNext()) {
+                postOnAnimation(this);
+            } else {
+                finish(text);
+            }
+        }
+
+        void cancel() {
+            mCancelled = true;
+            finish(getText());
+        }
+
+        void moveInsertionMarker(int index) {
+            getText().setSpan(mInsertionMarker, index, index, Spanned.SPAN_MARK_MARK);
+        }
+
+        private void finish(Editable text) {
+            text.removeSpan(mInsertionMarker);
+            if (mChipLoader == this) {
+                mChipLoader = null;
+            }
+        }
+    }
+
+    /**
+     * Enables collapsing the chips while this text view doesn't have focus. When focus is lost, only the first {@code maxVisibleChips} chips are
+     * kept and the rest are replaced by a single summary chip (e.g. "+12 more") so that the memory used by the chips and the cost of laying them
+     * out stay bounded no matter how many chips there are. The hidden chips are kept as {@link ChipInfo}s and are recreated when focus is gained.
+     * <p>
+     *     While the chips are collapsed, chips set through the setText methods of this class beyond the first {@code maxVisibleChips} are never
+     *     created until the chips are expanded. Only the chips after the last unterminated token are ever collapsed, so no typed text is hidden.
+     * </p>
+     * <p>
+     *     Note: {@link #getAllChips()} doesn't include the summary chip nor the chips hidden behind it (see {@link #getCollapsedChips()}), but
+     *     {@link #getChipValues()} includes the values of the hidden chips.
+     * </p>
+     *
+     * @param maxVisibleChips the number of chips to show while collapsed
+     * @see #disableChipCollapsing()
+     */
+    public void enableChipCollapsing(int maxVisibleChips) {
+        expandChips();
+        mMaxCollapsedChips = Math.max(0, maxVisibleChips);
+        if (shouldCollapseChips()) {
+            collapseChips();
+        }
+    }
+
+    /**
+     * Disables collapsing the chips, expanding them if they are currently collapsed.
+     *
+     * @see #enableChipCollapsing(int)
+     */
+    public void disableChipCollapsing() {
+        mMaxCollapsedChips = -1;
+        expandChips();
+    }
+
+    /**
+     * @return the text and data of the chips hidden behind the summary chip, in the order they appeared in the text (empty if the chips aren't
+     * collapsed)
+     */
+    @NonNull
+    public List<ChipInfo> getCollapsedChips() {
+        return hasSummaryChip() ? Collections.unmodifiableList(mCollapsedChips) : Collections.<ChipInfo>emptyList();
+    }
+
+    private boolean shouldCollapseChips() {
+        return mMaxCollapsedChips >= 0 && !hasFocus();
+    }
+
+    private boolean hasSummaryChip() {
+        if (mSummaryChip != null && (mChipTokenizer == null || mChipTokenizer.findChipStart(mSummaryChip, getText()) < 0)) {
+            mSummaryChip = findSummaryChip();
+            if (mSummaryChip == null) {
+                // The text (and the summary chip with it) was replaced so the collapsed chips are stale
+                mCollapsedChips.clear();
+            }
+        }
+        return mSummaryChip != null;
+    }
+
+    /**
+     * Removes the summary chip from {@code chips}, since it isn't one of the user's chips.
+     */
+    private static void removeSummaryChip(List<Chip> chips) {
+        for (int i = chips.size() - 1; i >= 0; i--) {
+            if (chips.get(i).getData() == SUMMARY_CHIP_DATA) {
+                chips.remove(i);
+            }
+        }
+    }
+
+    @Nullable
+    private Chip findSummaryChip() {
         if (mChipTokenizer == null) {
+            return null;
+        }
+        Editable text = getText();
+        Chip[] chips = mChipTokenizer.findAllChips(0, text.length(), text);
+        // The summary chip is the last chip unless the user has added chips since
+        for (int i = chips.length - 1; i >= 0; i--) {
+            if (chips[i].getData() == SUMMARY_CHIP_DATA) {
+                return chips[i];
+            }
+        }
+        return null;
+    }
+
+    private void collapseChips() {
+        if (mChipTokenizer == null || hasSummaryChip()) {
+            return;
+        }
+        flushChipInvalidation();
+
+        Editable text = getText();
+        Chip[] chips = mChipTokenizer.findAllChips(0, text.length(), text);
+        if (chips.length <= mMaxCollapsedChips) {
             return;
         }
+
+        // Don't collapse any chips that come before an unterminated token
+        int lastChipEnd = mChipTokenizer.findChipEnd(chips[chips.length - 1], text);
+        int lastTokenEnd = 0;
+        TokenRanges tokens = mChipTokenizer.findAllTokenRanges(text);
+        for (int i = tokens.size() - 1; i >= 0; i--) {
+            if (tokens.getStart(i) < lastChipEnd) {
+                lastTokenEnd = tokens.getEnd(i);
+                break;
+            }
+        }
+        int firstCollapsedChip = mMaxCollapsedChips;
+        while (firstCollapsedChip < chips.length && mChipTokenizer.findChipStart(chips[firstCollapsedChip], text) < lastTokenEnd) {
+            firstCollapsedChip++;
+        }
+        if (firstCollapsedChip == chips.length) {
+            return;
+        }
+
+        for (int i = firstCollapsedChip; i < chips.length; i++) {
+            mCollapsedChips.add(new ChipInfo(chips[i].getText(), chips[i].getData()));
+        }
+        CharSequence summary = createSummaryChip();
+        if (mSummaryChip == null) {
+            // The tokenizer didn't create a chip that can be tracked
+            mCollapsedChips.clear();
+            return;
+        }
+
+        int collapseStart = mChipTokenizer.findChipStart(chips[firstCollapsedChip], text);
         beginUnwatchedTextChange();
+        text.replace(collapseStart, lastChipEnd, summary);
+        endUnwatchedTextChange();
+        if (mChipLoader != null) {
+            mChipLoader.moveInsertionMarker(collapseStart + summary.length());
+        }
+    }
+
+    private void expandChips() {
+        if (!hasSummaryChip()) {
+            return;
+        }
+        flushChipInvalidation();
+
+        Editable text = getText();
+        int summaryStart = mChipTokenizer.findChipStart(mSummaryChip, text);
+        int summaryEnd = mChipTokenizer.findChipEnd(mSummaryChip, text);
+        CharSequence expandedText = mChipTokenizer.terminateTokens(mCollapsedChips);
+        mCollapsedChips.clear();
+        mSummaryChip = null;
+
+        beginUnwatchedTextChange();
+        text.replace(summaryStart, summaryEnd, expandedText);
+        endUnwatchedTextChange();
+        if (mChipLoader != null) {
+            mChipLoader.moveInsertionMarker(summaryStart + expandedText.length());
+        }
+    }
 
+    private void updateSummaryChip() {
         Editable text = getText();
-        text.clear();
+        int summaryStart = mChipTokenizer.findChipStart(mSummaryChip, text);
+        int summaryEnd = mChipTokenizer.findChipEnd(mSummaryChip, text);
+        CharSequence summary = createSummaryChip();
 
-        if (chips != null) {
-            for (ChipInfo chipInfo : chips) {
-                CharSequence chippedText = mChipTokenizer.terminateToken(chipInfo.getText(), chipInfo.getData());
-                text.append(chippedText);
+        beginUnwatchedTextChange();
+        text.replace(summaryStart, summaryEnd, summary);
+        endUnwatchedTextChange();
+        if (mChipLoader != null) {
+            mChipLoader.moveInsertionMarker(summaryStart + summary.length());
+        }
+    }
+
+    /**
+     * Creates the summary chip for the current collapsed chips and sets it as {@link #mSummaryChip}.
+     *
+     * @return the text of the summary chip
+     */
+    private CharSequence createSummaryChip() {
+        int collapsedCount = mCollapsedChips.size();
+        String summaryText = getContext().getResources().getQuantityString(R.plurals.chip_collapsed_summary, collapsedCount, collapsedCount);
+        CharSequence summary = mChipTokenizer.terminateToken(summaryText, SUMMARY_CHIP_DATA);
+        mSummaryChip = null;
+        if (summary instanceof Spanned) {
+            Chip[] chips = mChipTokenizer.findAllChips(0, summary.length(), (Spanned) summary);
+            if (chips.length > 0) {
+                mSummaryChip = chips[0];
             }
         }
-        setSelection(text.length());
+        return summary;
+    }
+
+    @Override
+    protected void onFocusChanged(boolean focused, int direction, @Nullable Rect previouslyFocusedRect) {
+        if (focused) {
+            expandChips();
+        }
+        super.onFocusChanged(focused, direction, previouslyFocusedRect);
+        if (!focused && shouldCollapseChips()) {
+            collapseChips();
+        }
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+        if (!hasSummaryChip()) {
+            return superState;
+        }
+        // The hidden chips aren't in the text so they have to be saved separately
+        Editable text = getText();
+        int summaryStart = mChipTokenizer.findChipStart(mSummaryChip, text);
+        int summaryEnd = mChipTokenizer.findChipEnd(mSummaryChip, text);
+        return new SavedState(superState, mCollapsedChips, summaryStart, text.subSequence(summaryStart, summaryEnd).toString());
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        if (mChipTokenizer == null) {
+            return;
+        }
+
+        mCollapsedChips.clear();
+        mCollapsedChips.addAll(savedState.mCollapsedChips);
+        mSummaryChip = findSummaryChip();
+        if (mSummaryChip != null) {
+            return;
+        }
+
+        // The chips weren't restored with the text (when the state was parcelled for instance) so put the summary chip back where it was
+        Editable text = getText();
+        int summaryStart = savedState.mSummaryStart;
+        int summaryEnd = summaryStart + savedState.mSummaryText.length();
+        if (summaryEnd > text.length() || !savedState.mSummaryText.equals(text.subSequence(summaryStart, summaryEnd).toString())) {
+            mCollapsedChips.clear();
+            return;
+        }
+        CharSequence summary = createSummaryChip();
+        beginUnwatchedTextChange();
+        text.replace(summaryStart, summaryEnd, summary);
         endUnwatchedTextChange();
     }
 
+    /**
+     * The state of a {@link NachoTextView} whose chips are collapsed: the chips hidden behind the summary chip and where the summary chip is.
+     * The data of a hidden chip is only kept if it can be written to a {@link Parcel} (see {@link Parcel#writeValue(Object)}).
+     */
+    static class SavedState extends BaseSavedState {
+
+        private final List<ChipInfo> mCollapsedChips;
+        private final int mSummaryStart;
+        private final String mSummaryText;
+
+        SavedState(Parcelable superState, List<ChipInfo> collapsedChips, int summaryStart, String summaryText) {
+            super(superState);
+            mCollapsedChips = new ArrayList<>(collapsedChips);
+            mSummaryStart = summaryStart;
+            mSummaryText = summaryText;
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            int collapsedChipCount = in.readInt();
+            mCollapsedChips = new ArrayList<>(collapsedChipCount);
+            for (int i = 0; i < collapsedChipCount; i++) {
+                CharSequence chipText = TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(in);
+                Object chipData = in.readValue(NachoTextView.class.getClassLoader());
+                mCollapsedChips.add(new ChipInfo(chipText, chipData));
+            }
+            mSummaryStart = in.readInt();
+            mSummaryText = in.readString();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(mCollapsedChips.size());
+            for (ChipInfo chip : mCollapsedChips) {
+                TextUtils.writeToParcel(chip.getText(), out, flags);
+                Object chipData = chip.getData();
+                out.writeValue((chipData instanceof Parcelable || chipData instanceof Serializable) ? chipData : null);
+            }
+            out.writeInt(mSummaryStart);
+            out.writeString(mSummaryText);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
     @Override
     public void onItemClick(AdapterView<?> adapterView, View view, int position, long id) {
         if (mChipTokenizer == null) {
             return;
         }
+        flushChipInvalidation();
         Adapter adapter = getAdapter();
         if (adapter == null) {
             return;
@@ -913,6 +1780,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
     @Override
     public void onTextChanged(@NonNull CharSequence textChanged, int start, int before, int count) {
+        mTextVersion++;
     }
 
     @Override
@@ -920,19 +1788,21 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         if (mIgnoreTextChangedEvents) {
             return;
         }
+        // Any chips created below must use the current configuration
+        flushChipInvalidation();
 
         // Avoid triggering text changed events from changes we make in this method
         beginUnwatchedTextChange();
 
-        // Handle backspace key
-        if (mChipTokenizer != null) {
-            Iterator<Chip> iterator = mChipsToRemove.iterator();
-            while (iterator.hasNext()) {
-                Chip chip = iterator.next();
-                iterator.remove();
-                mChipTokenizer.deleteChip(chip, message);
-                if (mOnChipRemoveListener != null) {
-                    mOnChipRemoveListener.onChipRemove(chip);
+        // Handle backspace key (or the deletion of a selection)
+        if (mChipTokenizer != null && !mChipsToRemove.isEmpty()) {
+            List<Chip> removedChips = mChipsToRemove;
+            mChipsToRemove = new ArrayList<>();
+            mChipTokenizer.deleteChips(removedChips, message);
+            if (mOnChipRemoveListener != null) {
+                removeSummaryChip(removedChips);
+                if (!removedChips.isEmpty()) {
+                    mOnChipRemoveListener.onChipsRemoved(removedChips);
                 }
             }
         }
@@ -954,13 +1824,10 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
             return;
         }
 
-        // First remove any illegal characters
+        // First remove any illegal characters (only copying the changed text if it contains any)
         Editable text = getText();
-        CharSequence subText = text.subSequence(start, end);
-        CharSequence withoutIllegalCharacters = removeIllegalCharacters(subText);
-
-        // Check if illegal characters were found
-        if (withoutIllegalCharacters.length() < subText.length()) {
+        if (findFirstIllegalCharacter(text, start, end) != -1) {
+            CharSequence withoutIllegalCharacters = removeIllegalCharacters(text.subSequence(start, end));
             text.replace(start, end, withoutIllegalCharacters);
             end = start + withoutIllegalCharacters.length();
             clearComposingText();
@@ -973,6 +1840,9 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
         // Then handle chip terminator characters
         if (mChipTokenizer != null && mChipTerminatorHandler != null) {
+            if (shouldChipifyAsync(start, end) && chipifyAsync(start, end)) {
+                return;
+            }
             int newSelectionIndex = mChipTerminatorHandler.findAndHandleChipTerminators(mChipTokenizer, getText(), start, end, mIsPasteEvent);
             if (newSelectionIndex > 0) {
                 setSelection(newSelectionIndex);
@@ -980,30 +1850,52 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         }
     }
 
+    /**
+     * @return {@code text} itself if it doesn't contain any illegal characters, otherwise a copy of it without the illegal characters
+     */
     private CharSequence removeIllegalCharacters(CharSequence text) {
-        StringBuilder newText = new StringBuilder();
+        int length = text.length();
+        int firstIllegalIndex = findFirstIllegalCharacter(text, 0, length);
+        if (firstIllegalIndex == -1) {
+            return text;
+        }
 
-        for (int i = 0; i < text.length(); i++) {
-            char theChar = text.charAt(i);
-            if (!isIllegalCharacter(theChar)) {
-                newText.append(theChar);
+        StringBuilder newText = new StringBuilder(length - 1);
+        newText.append(text, 0, firstIllegalIndex);
+        for (int i = firstIllegalIndex; i < length; ) {
+            int codePoint = Character.codePointAt(text, i);
+            int charCount = Character.charCount(codePoint);
+            if (!illegalCharacterIdentifier.isCodePointIllegal(codePoint)) {
+                newText.append(text, i, i + charCount);
             }
+            i += charCount;
         }
 
         return newText;
     }
 
-    private boolean isIllegalCharacter(char character) {
-        if (illegalCharacterIdentifier != null) {
-            return illegalCharacterIdentifier.isCharacterIllegal(character);
+    /**
+     * @return the index of the first illegal character in {@code text} between {@code start} and {@code end} or -1 if there are none
+     */
+    private int findFirstIllegalCharacter(CharSequence text, int start, int end) {
+        if (illegalCharacterIdentifier == null) {
+            return -1;
+        }
+        for (int i = start; i < end; ) {
+            int codePoint = Character.codePointAt(text, i);
+            if (illegalCharacterIdentifier.isCodePointIllegal(codePoint)) {
+                return i;
+            }
+            i += Character.charCount(codePoint);
         }
-        return false;
+        return -1;
     }
 
     /**
      * Chipifies all existing plain text in the field
      */
     public void chipifyAllUnterminatedTokens() {
+        flushChipInvalidation();
         beginUnwatchedTextChange();
         chipifyAllUnterminatedTokens(getText());
         endUnwatchedTextChange();
@@ -1023,6 +1915,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
      * @param end   one more than the index of the last character to replace
      */
     public void chipify(int start, int end) {
+        flushChipInvalidation();
         beginUnwatchedTextChange();
         chipify(start, end, getText(), null);
         endUnwatchedTextChange();
@@ -1037,6 +1930,30 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
     }
 
     private CharSequence getTextWithPlainTextSpans(int start, int end) {
+        StringBuilder builder = new StringBuilder(Math.max(0, end - start));
+        try {
+            appendTextWithPlainTextSpans(builder, start, end);
+        } catch (IOException e) {
+            // A StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return builder;
+    }
+
+    /**
+     * Appends the text between {@code start} and {@code end} to {@code out}, with each chip replaced by its text (obtained through
+     * {@link Chip#getText()}). This is what is put in the clipboard when text is copied or cut. A chip that is only partially within the range
+     * is written in full, and while the chips are collapsed the summary chip is written as the text of the chips hidden behind it.
+     * <p>
+     *     The text is written in a single pass, so this takes time proportional to the length of the range no matter how many chips it contains.
+     * </p>
+     *
+     * @param out   the destination of the text
+     * @param start the start of the range (inclusive)
+     * @param end   the end of the range (exclusive)
+     * @throws IOException if {@code out} throws one
+     */
+    public void appendTextWithPlainTextSpans(@NonNull Appendable out, int start, int end) throws IOException {
         Editable editable = getText();
 
         // Fix invalid string indices
@@ -1044,28 +1961,69 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         start = validatedIndices.first;
         end = validatedIndices.second;
 
-        String selectedText = editable.subSequence(start, end).toString();
+        if (mChipTokenizer == null) {
+            out.append(editable, start, end);
+            return;
+        }
 
-        if (mChipTokenizer != null) {
-            List<Chip> chips = Arrays.asList(mChipTokenizer.findAllChips(start, end, editable));
-            Collections.reverse(chips);
-            for (Chip chip : chips) {
-                String chipText = chip.getText().toString();
-                int chipStart = mChipTokenizer.findChipStart(chip, editable) - start;
-                int chipEnd = mChipTokenizer.findChipEnd(chip, editable) - start;
-                selectedText = selectedText.substring(0, chipStart) + chipText + selectedText.substring(chipEnd, selectedText.length());
+        Chip[] chips = mChipTokenizer.findAllChips(start, end, editable);
+        sortChipsIfNeeded(chips, editable);
+        boolean hasSummaryChip = hasSummaryChip();
+        int index = start;
+        for (Chip chip : chips) {
+            int chipStart = mChipTokenizer.findChipStart(chip, editable);
+            int chipEnd = mChipTokenizer.findChipEnd(chip, editable);
+            if (chipStart > index) {
+                out.append(editable, index, chipStart);
+            }
+            if (hasSummaryChip && chip == mSummaryChip) {
+                for (ChipInfo collapsedChip : mCollapsedChips) {
+                    out.append(collapsedChip.getText());
+                }
+            } else {
+                out.append(chip.getText());
+            }
+            index = Math.max(index, chipEnd);
+        }
+        if (index < end) {
+            out.append(editable, index, end);
+        }
+    }
+
+    /**
+     * Sorts chips by their position in the text, unless they already are (as they are when found by a {@link SpanChipTokenizer}).
+     */
+    private void sortChipsIfNeeded(Chip[] chips, final Spanned text) {
+        for (int i = 1; i < chips.length; i++) {
+            if (mChipTokenizer.findChipStart(chips[i - 1], text) > mChipTokenizer.findChipStart(chips[i], text)) {
+                final ChipTokenizer chipTokenizer = mChipTokenizer;
+                Arrays.sort(chips, new Comparator<Chip>() {
+                    @Override
+                    public int compare(Chip lhs, Chip rhs) {
+                        return Integer.compare(chipTokenizer.findChipStart(lhs, text), chipTokenizer.findChipStart(rhs, text));
+                    }
+                });
+                return;
             }
         }
-        return selectedText;
     }
 
     /**
-     * @return all of the chips currently in the text view - this does not include any unchipped text
+     * @return all of the chips currently in the text view - this does not include any unchipped text nor, while the chips are collapsed, the
+     * summary chip and the chips hidden behind it (see {@link #getCollapsedChips()})
      */
     @NonNull
     public List<Chip> getAllChips() {
         Editable text = getText();
-        return mChipTokenizer != null ? Arrays.asList(mChipTokenizer.findAllChips(0, text.length(), text)) : new ArrayList<Chip>();
+        if (mChipTokenizer == null) {
+            return new ArrayList<>();
+        }
+        List<Chip> chips = Arrays.asList(mChipTokenizer.findAllChips(0, text.length(), text));
+        if (hasSummaryChip()) {
+            chips = new ArrayList<>(chips);
+            chips.remove(mSummaryChip);
+        }
+        return chips;
     }
 
     /**
@@ -1082,13 +2040,16 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
         for (Chip chip : chips) {
             chipValues.add(chip.getText().toString());
         }
+        for (ChipInfo collapsedChip : getCollapsedChips()) {
+            chipValues.add(collapsedChip.getText().toString());
+        }
 
         return chipValues;
     }
 
     /**
      * Returns a List of the string values of all the tokens (unchipped text) in the text
-     * (obtained through {@link ChipTokenizer#findAllTokens(CharSequence)}). This does not include any chipped text.
+     * (obtained through {@link ChipTokenizer#findAllTokenRanges(CharSequence)}). This does not include any chipped text.
      *
      * @return the List of token values
      */
@@ -1098,9 +2059,10 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
         if (mChipTokenizer != null) {
             Editable text = getText();
-            List<Pair<Integer, Integer>> unterminatedTokenIndexes = mChipTokenizer.findAllTokens(text);
-            for (Pair<Integer, Integer> indexes : unterminatedTokenIndexes) {
-                String tokenValue = text.subSequence(indexes.first, indexes.second).toString();
+            TokenRanges unterminatedTokens = mChipTokenizer.findAllTokenRanges(text);
+            // Listed from last to first, like ChipTokenizer#findAllTokens(CharSequence) has always returned them
+            for (int i = unterminatedTokens.size() - 1; i >= 0; i--) {
+                String tokenValue = text.subSequence(unterminatedTokens.getStart(i), unterminatedTokens.getEnd(i)).toString();
                 tokenValues.add(tokenValue);
             }
         }
@@ -1155,6 +2117,7 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
 
         @Override
         public CharSequence terminateToken(CharSequence text) {
+            flushChipInvalidation();
             return mChipTokenizer.terminateToken(text, null);
         }
     }
@@ -1178,6 +2141,18 @@ public class NachoTextView extends MultiAutoCompleteTextView implements TextWatc
          * @param chip  the {@link Chip} that was removed
          */
         void onChipRemove(Chip chip);
+
+        /**
+         * Called when several chips in this TextView are removed by a single edit (when a selection containing chips is deleted for instance).
+         * By default this calls {@link #onChipRemove(Chip)} for each chip; override it to handle all of the chips at once.
+         *
+         * @param chips the {@link Chip}s that were removed, in the order they appeared in the text
+         */
+        default void onChipsRemoved(@NonNull List<Chip> chips) {
+            for (Chip chip : chips) {
+                onChipRemove(chip);
+            }
+        }
     }
 
     private class SingleTapListener extends GestureDetector.SimpleOnGestureListener {
@@ -0,0 +1,145 @@
+package com.hootsuite.nachos;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.text.Editable;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.util.Pair;
+
+import com.hootsuite.nachos.chip.Chip;
+import com.hootsuite.nachos.chip.ChipInfo;
+import com.hootsuite.nachos.tokenizer.ChipTokenizer;
+import com.hootsuite.nachos.tokenizer.TokenRanges;
+
+import java.util.List;
+
+/**
+ * A {@link ChipTokenizer} used to handle the chip terminators of a large paste on a background thread (see
+ * {@link NachoTextView#enableAsyncChipification(java.util.concurrent.Executor, int)}). It finds tokens with another tokenizer, but rather than
+ * creating chips it replaces each terminated token by a single {@link #PENDING_CHIP_CHARACTER} carrying a {@link PendingChip} span. The pending
+ * chips are turned into real chips on the main thread once the result is committed, so chip creators and chip styles are never used off of the
+ * main thread.
+ * <p>
+ *     The text given to this tokenizer is a plain text snapshot without any chips, so it only relies on the token finding methods of the other
+ *     tokenizer reading the characters of the text. Since {@link #terminateAllTokens(Editable)} could chipify any part of the text, it is only
+ *     recorded (see {@link #isTerminateAllTokensRequested()}) and left to the main thread.
+ * </p>
+ */
+class PendingChipTokenizer implements ChipTokenizer {
+
+    /**
+     * The character a pending chip occupies in the text. Text that already contains this character can't be handled with this tokenizer.
+     */
+    static final char PENDING_CHIP_CHARACTER = '\uFFFC';
+
+    @NonNull
+    private final ChipTokenizer mChipTokenizer;
+    private boolean mTerminateAllTokensRequested;
+
+    PendingChipTokenizer(@NonNull ChipTokenizer chipTokenizer) {
+        mChipTokenizer = chipTokenizer;
+    }
+
+    /**
+     * @return true if {@link #terminateAllTokens(Editable)} was called
+     */
+    boolean isTerminateAllTokensRequested() {
+        return mTerminateAllTokensRequested;
+    }
+
+    @Override
+    public void applyConfiguration(Editable text, ChipConfiguration chipConfiguration) {
+        // There are no chips to configure
+    }
+
+    @Override
+    public int findTokenStart(CharSequence text, int cursor) {
+        int tokenStart = mChipTokenizer.findTokenStart(text, cursor);
+        // Tokens also end at pending chips
+        for (int i = cursor - 1; i >= tokenStart; i--) {
+            if (text.charAt(i) == PENDING_CHIP_CHARACTER) {
+                tokenStart = i + 1;
+                while (tokenStart < cursor && Character.isWhitespace(text.charAt(tokenStart))) {
+                    tokenStart++;
+                }
+                break;
+            }
+        }
+        return tokenStart;
+    }
+
+    @Override
+    public int findTokenEnd(CharSequence text, int cursor) {
+        int tokenEnd = mChipTokenizer.findTokenEnd(text, cursor);
+        // Tokens also end at pending chips
+        for (int i = cursor; i < tokenEnd; i++) {
+            if (text.charAt(i) == PENDING_CHIP_CHARACTER) {
+                return i;
+            }
+        }
+        return tokenEnd;
+    }
+
+    @NonNull
+    @Override
+    public List<Pair<Integer, Integer>> findAllTokens(CharSequence text) {
+        return mChipTokenizer.findAllTokens(text);
+    }
+
+    @NonNull
+    @Override
+    public TokenRanges findAllTokenRanges(CharSequence text) {
+        return mChipTokenizer.findAllTokenRanges(text);
+    }
+
+    @Override
+    public CharSequence terminateToken(CharSequence text, @Nullable Object data) {
+        SpannableString pendingChip = new SpannableString(Character.toString(PENDING_CHIP_CHARACTER));
+        pendingChip.setSpan(new PendingChip(text.toString(), data), 0, 1, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        return pendingChip;
+    }
+
+    @Override
+    public void terminateAllTokens(Editable text) {
+        mTerminateAllTokensRequested = true;
+    }
+
+    @Override
+    public int findChipStart(Chip chip, Spanned text) {
+        return -1;
+    }
+
+    @Override
+    public int findChipEnd(Chip chip, Spanned text) {
+        return -1;
+    }
+
+    @NonNull
+    @Override
+    public Chip[] findAllChips(int start, int end, Spanned text) {
+        return new Chip[0];
+    }
+
+    @Override
+    public void revertChipToToken(Chip chip, Editable text) {
+    }
+
+    @Override
+    public void deleteChip(Chip chip, Editable text) {
+    }
+
+    @Override
+    public void deleteChipAndPadding(Chip chip, Editable text) {
+    }
+
+    /**
+     * Marks a {@link #PENDING_CHIP_CHARACTER} with the text and data of the chip to create in its place.
+     */
+    static class PendingChip extends ChipInfo {
+
+        PendingChip(@NonNull CharSequence text, @Nullable Object data) {
+            super(text, data);
+        }
+    }
+}
@@ -40,4 +40,16 @@ public interface ChipCreator<C extends Chip> {
      * @param chipConfiguration the configuration to apply to the chip
      */
     void configureChip(@NonNull C chip, @NonNull ChipConfiguration chipConfiguration);
+
+    /**
+     * Returns whether {@link #configureChip(Chip, ChipConfiguration)} can be applied to a chip that is already in the text. If this returns false,
+     * a chip is reconfigured by recreating it through {@link #createChip(Context, Chip)}, which means the text has to be edited for every chip.
+     * Return true if {@link #configureChip(Chip, ChipConfiguration)} fully updates the chip and invalidates anything that affects its size.
+     *
+     * @param chip the chip that is about to be reconfigured
+     * @return true if the chip can be reconfigured in place, false if it must be recreated (the default)
+     */
+    default boolean canConfigureInPlace(@NonNull C chip) {
+        return false;
+    }
 }
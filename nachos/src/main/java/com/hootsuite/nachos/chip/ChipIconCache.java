@@ -0,0 +1,197 @@
+package com.hootsuite.nachos.chip;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import androidx.annotation.NonNull;
+import android.util.LruCache;
+
+import java.util.Map;
+
+/**
+ * A memory bounded LRU cache of chip icons that have been rasterized at the size they are drawn at.
+ * <p>
+ *     Entries are keyed by the identity of the {@link Drawable} and the size of the circle the icon is drawn inside of, so each icon is only
+ *     rasterized once per size and is simply blitted onto the canvas when a chip is drawn. Since entries are keyed by identity, if a Drawable's
+ *     contents change after it has been drawn, call {@link #invalidate(Drawable)} so it is rasterized again.
+ * </p>
+ * <p>
+ *     All {@link ChipSpan}s share {@link #getDefault() the default cache} whose memory budget can be adjusted with {@link #setMaxSizeBytes(int)}.
+ *     The hit and miss counts ({@link #hitCount()}, {@link #missCount()} and {@link #evictionCount()}) can be used to tune that budget.
+ * </p>
+ */
+public class ChipIconCache {
+
+    /**
+     * The default memory budget of the cache, in bytes
+     */
+    public static final int DEFAULT_MAX_SIZE_BYTES = 2 * 1024 * 1024;
+
+    private static ChipIconCache sDefault;
+
+    private final LruCache<Key, Bitmap> mCache;
+    // Reused for lookups so that cache hits don't allocate anything (guarded by this)
+    private final Key mProbeKey = new Key();
+
+    /**
+     * @param maxSizeBytes the maximum number of bytes the cached bitmaps may use
+     */
+    public ChipIconCache(int maxSizeBytes) {
+        mCache = new LruCache<Key, Bitmap>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by all {@link ChipSpan}s
+     */
+    @NonNull
+    public static synchronized ChipIconCache getDefault() {
+        if (sDefault == null) {
+            sDefault = new ChipIconCache(DEFAULT_MAX_SIZE_BYTES);
+        }
+        return sDefault;
+    }
+
+    /**
+     * Returns {@code icon} rasterized to fit within a {@code maxSizePx} by {@code maxSizePx} square (preserving its aspect ratio), rasterizing
+     * and caching it first if it isn't already in the cache.
+     *
+     * @param icon      the icon to rasterize
+     * @param maxSizePx the width and height of the square the icon should fit within
+     * @return the rasterized icon, which must not be modified or recycled
+     */
+    @NonNull
+    public synchronized Bitmap getIcon(@NonNull Drawable icon, int maxSizePx) {
+        int intrinsicWidth = icon.getIntrinsicWidth();
+        int intrinsicHeight = icon.getIntrinsicHeight();
+        int width = maxSizePx;
+        int height = maxSizePx;
+        if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+            float ratio = Math.min((float) maxSizePx / intrinsicWidth, (float) maxSizePx / intrinsicHeight);
+            width = Math.round(ratio * intrinsicWidth);
+            height = Math.round(ratio * intrinsicHeight);
+        }
+        // A bitmap needs at least one pixel in each dimension
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+
+        mProbeKey.set(icon, width, height);
+        Bitmap bitmap = mCache.get(mProbeKey);
+        if (bitmap == null) {
+            bitmap = rasterize(icon, width, height);
+            mCache.put(new Key().set(icon, width, height), bitmap);
+        }
+        // Don't hold on to the drawable through the probe key
+        mProbeKey.set(null, 0, 0);
+        return bitmap;
+    }
+
+    private static Bitmap rasterize(Drawable icon, int width, int height) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        icon.setBounds(0, 0, width, height);
+        icon.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    /**
+     * Removes every cached rasterization of {@code icon}. Call this if the contents of the Drawable change after it has been drawn.
+     *
+     * @param icon the icon to remove from the cache
+     */
+    public synchronized void invalidate(@NonNull Drawable icon) {
+        for (Map.Entry<Key, Bitmap> entry : mCache.snapshot().entrySet()) {
+            if (entry.getKey().mDrawable == icon) {
+                mCache.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Sets the maximum number of bytes the cached bitmaps may use, evicting entries if necessary.
+     *
+     * @param maxSizeBytes the new memory budget, in bytes
+     */
+    public synchronized void setMaxSizeBytes(int maxSizeBytes) {
+        mCache.resize(maxSizeBytes);
+    }
+
+    /**
+     * @return the maximum number of bytes the cached bitmaps may use
+     */
+    public int maxSizeBytes() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * @return the number of bytes currently used by the cached bitmaps
+     */
+    public int sizeBytes() {
+        return mCache.size();
+    }
+
+    /**
+     * @return the number of times a requested icon was already in the cache
+     */
+    public int hitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * @return the number of times a requested icon had to be rasterized
+     */
+    public int missCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return the number of entries that have been evicted to stay within the memory budget
+     */
+    public int evictionCount() {
+        return mCache.evictionCount();
+    }
+
+    private static final class Key {
+
+        private Drawable mDrawable;
+        private int mWidth;
+        private int mHeight;
+
+        Key set(Drawable drawable, int width, int height) {
+            mDrawable = drawable;
+            mWidth = width;
+            mHeight = height;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mDrawable == other.mDrawable && mWidth == other.mWidth && mHeight == other.mHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(mDrawable);
+            result = 31 * result + mWidth;
+            result = 31 * result + mHeight;
+            return result;
+        }
+    }
+}
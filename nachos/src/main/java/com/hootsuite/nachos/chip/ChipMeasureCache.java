@@ -0,0 +1,224 @@
+package com.hootsuite.nachos.chip;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.util.LruCache;
+
+/**
+ * A bounded LRU cache of chip measurements, so that chips showing the same text with the same style (when the same recipients appear again, or
+ * when chips are recreated to be reconfigured) don't measure and ellipsize that text again.
+ * <p>
+ *     Entries are keyed by the text and every input of the measurement: the text size, typeface, text scale and letter spacing of the
+ *     {@link Paint}, the horizontal space taken by everything but the text (paddings and icon), the width the chip must fit within and the
+ *     ellipsis added to the text when it doesn't fit (which depends on the locale). Any other
+ *     attribute of the Paint that affects text width (font feature settings for instance) is assumed to be the same for every chip.
+ * </p>
+ * <p>
+ *     {@link ChipSpan}s and {@link TextChipSpan}s share {@link #getDefault() the default cache} whose capacity can be adjusted with
+ *     {@link #setMaxEntries(int)}.
+ * </p>
+ */
+public class ChipMeasureCache {
+
+    /**
+     * The default number of measurements kept by the cache
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static ChipMeasureCache sDefault;
+
+    private final LruCache<Key, Measurement> mCache;
+    // Reused for lookups so that cache hits don't allocate anything (guarded by this)
+    private final Key mProbeKey = new Key();
+
+    /**
+     * @param maxEntries the maximum number of measurements to keep
+     */
+    public ChipMeasureCache(int maxEntries) {
+        mCache = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * @return the cache shared by all {@link ChipSpan}s and {@link TextChipSpan}s
+     */
+    @NonNull
+    public static synchronized ChipMeasureCache getDefault() {
+        if (sDefault == null) {
+            sDefault = new ChipMeasureCache(DEFAULT_MAX_ENTRIES);
+        }
+        return sDefault;
+    }
+
+    /**
+     * Looks up the measurement of a chip.
+     *
+     * @param text         the full text of the chip
+     * @param paint        the paint the chip is measured with, with the chip's text size already applied
+     * @param padding      the horizontal space inside the chip taken by everything but the text, in pixels
+     * @param maxChipWidth the width (without margins) the chip must fit within, or -1 if the chip is never ellipsized
+     * @param ellipsis     the ellipsis added to the end of the text if it has to be ellipsized
+     * @return the cached measurement or null if the chip hasn't been measured with these inputs
+     */
+    @Nullable
+    public synchronized Measurement get(@NonNull String text, @NonNull Paint paint, int padding, int maxChipWidth, @NonNull String ellipsis) {
+        mProbeKey.set(text, paint, padding, maxChipWidth, ellipsis);
+        Measurement measurement = mCache.get(mProbeKey);
+        // Don't hold on to the text through the probe key
+        mProbeKey.set(null, paint, 0, 0, null);
+        return measurement;
+    }
+
+    /**
+     * Caches the measurement of a chip. The parameters are the same as those of {@link #get(String, Paint, int, int, String)}.
+     *
+     * @param chipWidth      the width of the chip without margins
+     * @param ellipsizedText the text to draw if the text had to be ellipsized to fit, or null if the full text fits
+     * @return the cached measurement
+     */
+    @NonNull
+    public synchronized Measurement put(@NonNull String text, @NonNull Paint paint, int padding, int maxChipWidth, @NonNull String ellipsis,
+                                        int chipWidth, @Nullable String ellipsizedText) {
+        Measurement measurement = new Measurement(chipWidth, ellipsizedText);
+        mCache.put(new Key().set(text, paint, padding, maxChipWidth, ellipsis), measurement);
+        return measurement;
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Sets the maximum number of measurements to keep, evicting entries if necessary.
+     *
+     * @param maxEntries the new capacity
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        mCache.resize(maxEntries);
+    }
+
+    /**
+     * @return the maximum number of measurements kept
+     */
+    public int maxEntries() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * @return the number of measurements currently cached
+     */
+    public int size() {
+        return mCache.size();
+    }
+
+    /**
+     * @return the number of times a requested measurement was already in the cache
+     */
+    public int hitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * @return the number of times a requested measurement wasn't in the cache
+     */
+    public int missCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return the number of entries that have been evicted to stay within the capacity
+     */
+    public int evictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * The result of measuring a chip.
+     */
+    public static final class Measurement {
+
+        private final int mChipWidth;
+        @Nullable
+        private final String mEllipsizedText;
+
+        Measurement(int chipWidth, @Nullable String ellipsizedText) {
+            mChipWidth = chipWidth;
+            mEllipsizedText = ellipsizedText;
+        }
+
+        /**
+         * @return the width of the chip without margins
+         */
+        public int getChipWidth() {
+            return mChipWidth;
+        }
+
+        /**
+         * @return the text to draw if the text had to be ellipsized to fit, or null if the full text fits
+         */
+        @Nullable
+        public String getEllipsizedText() {
+            return mEllipsizedText;
+        }
+    }
+
+    private static final class Key {
+
+        private String mText;
+        private float mTextSize;
+        private Typeface mTypeface;
+        private float mTextScaleX;
+        private float mLetterSpacing;
+        private int mPadding;
+        private int mMaxChipWidth;
+        private String mEllipsis;
+
+        Key set(String text, Paint paint, int padding, int maxChipWidth, String ellipsis) {
+            mText = text;
+            mTextSize = paint.getTextSize();
+            mTypeface = paint.getTypeface();
+            mTextScaleX = paint.getTextScaleX();
+            mLetterSpacing = paint.getLetterSpacing();
+            mPadding = padding;
+            mMaxChipWidth = maxChipWidth;
+            mEllipsis = ellipsis;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mTextSize == other.mTextSize
+                    && mTextScaleX == other.mTextScaleX
+                    && mLetterSpacing == other.mLetterSpacing
+                    && mPadding == other.mPadding
+                    && mMaxChipWidth == other.mMaxChipWidth
+                    && (mTypeface == null ? other.mTypeface == null : mTypeface.equals(other.mTypeface))
+                    && (mText == null ? other.mText == null : mText.equals(other.mText))
+                    && (mEllipsis == null ? other.mEllipsis == null : mEllipsis.equals(other.mEllipsis));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText != null ? mText.hashCode() : 0;
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(mTextScaleX);
+            result = 31 * result + Float.floatToIntBits(mLetterSpacing);
+            result = 31 * result + mPadding;
+            result = 31 * result + mMaxChipWidth;
+            result = 31 * result + (mEllipsis != null ? mEllipsis.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.hootsuite.nachos.chip;
 
 import android.content.Context;
 import android.content.res.ColorStateList;
-import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -12,11 +11,9 @@ import android.graphics.drawable.Drawable;
 import androidx.annotation.Dimension;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
+import android.text.TextUtils;
 import android.text.style.ImageSpan;
 
-import com.hootsuite.nachos.R;
-
 /**
  * A Span that displays text and an optional icon inside of a material design chip. The chip's dimensions, colors etc. can be extensively customized
  * through the various setter methods available in this class.
@@ -50,19 +47,22 @@ public class ChipSpan extends ImageSpan implements Chip {
     private static final float SCALE_PERCENT_OF_CHIP_HEIGHT = 0.70f;
     private static final boolean ICON_ON_LEFT_DEFAULT = true;
 
+    // Scratch objects used while measuring and drawing so that neither allocates. Spans are only ever measured and drawn on the UI thread.
+    private static final Rect sTextBounds = new Rect();
+    private static final RectF sBackgroundRect = new RectF();
+    private static final Paint.FontMetrics sFontMetrics = new Paint.FontMetrics();
+    private static char[] sEllipsizeBuffer = new char[0];
+
     private int[] mStateSet = new int[]{};
 
-    private String mEllipsis;
+    private final ChipStyle mStyle;
 
-    private ColorStateList mDefaultBackgroundColor;
     private ColorStateList mBackgroundColor;
     private int mTextColor;
     private int mCornerRadius = -1;
     private int mIconBackgroundColor;
 
     private int mTextSize = -1;
-    private int mPaddingEdgePx;
-    private int mPaddingBetweenImagePx;
     private int mLeftMarginPx;
     private int mRightMarginPx;
     private int mMaxAvailableWidth = -1;
@@ -90,24 +90,30 @@ public class ChipSpan extends ImageSpan implements Chip {
      * @param icon    an optional icon (can be {@code null}) for the ChipSpan to display
      */
     public ChipSpan(@NonNull Context context, @NonNull CharSequence text, @Nullable Drawable icon, Object data) {
+        this(new ChipStyle(context), text, icon, data);
+    }
+
+    /**
+     * Constructs a new ChipSpan whose default configuration comes from an existing {@link ChipStyle}. Prefer this constructor when creating
+     * many chips since the style can be shared between them instead of being read from resources for every chip.
+     *
+     * @param style the {@link ChipStyle} holding the default configuration for the ChipSpan
+     * @param text  the text for the ChipSpan to display
+     * @param icon  an optional icon (can be {@code null}) for the ChipSpan to display
+     * @see ChipSpanChipCreator#getChipStyle(Context)
+     */
+    public ChipSpan(@NonNull ChipStyle style, @NonNull CharSequence text, @Nullable Drawable icon, Object data) {
         super(icon);
         mIcon = icon;
         mText = text;
         mTextToDraw = mText.toString();
 
-        mEllipsis = context.getString(R.string.chip_ellipsis);
-
-        mDefaultBackgroundColor = ContextCompat.getColorStateList(context, R.color.chip_material_background);
-        mBackgroundColor = mDefaultBackgroundColor;
-
-        mTextColor = ContextCompat.getColor(context, R.color.chip_default_text_color);
-        mIconBackgroundColor = ContextCompat.getColor(context, R.color.chip_default_icon_background_color);
-
-        Resources resources = context.getResources();
-        mPaddingEdgePx = resources.getDimensionPixelSize(R.dimen.chip_default_padding_edge);
-        mPaddingBetweenImagePx = resources.getDimensionPixelSize(R.dimen.chip_default_padding_between_image);
-        mLeftMarginPx = resources.getDimensionPixelSize(R.dimen.chip_default_left_margin);
-        mRightMarginPx = resources.getDimensionPixelSize(R.dimen.chip_default_right_margin);
+        mStyle = style;
+        mBackgroundColor = style.getBackgroundColor();
+        mTextColor = style.getTextColor();
+        mIconBackgroundColor = style.getIconBackgroundColor();
+        mLeftMarginPx = style.getLeftMarginPx();
+        mRightMarginPx = style.getRightMarginPx();
 
         mData = data;
     }
@@ -119,16 +125,23 @@ public class ChipSpan extends ImageSpan implements Chip {
      * @param chipSpan the ChipSpan to copy
      */
     public ChipSpan(@NonNull Context context, @NonNull ChipSpan chipSpan) {
-        this(context, chipSpan.getText(), chipSpan.getDrawable(), chipSpan.getData());
+        this(new ChipStyle(context), chipSpan);
+    }
+
+    /**
+     * Copy constructor to recreate a ChipSpan from an existing one
+     *
+     * @param style    the {@link ChipStyle} holding the default configuration for the new ChipSpan
+     * @param chipSpan the ChipSpan to copy
+     */
+    public ChipSpan(@NonNull ChipStyle style, @NonNull ChipSpan chipSpan) {
+        this(style, chipSpan.getText(), chipSpan.getDrawable(), chipSpan.getData());
 
-        mDefaultBackgroundColor = chipSpan.mDefaultBackgroundColor;
         mTextColor = chipSpan.mTextColor;
         mIconBackgroundColor = chipSpan.mIconBackgroundColor;
         mCornerRadius = chipSpan.mCornerRadius;
 
         mTextSize = chipSpan.mTextSize;
-        mPaddingEdgePx = chipSpan.mPaddingEdgePx;
-        mPaddingBetweenImagePx = chipSpan.mPaddingBetweenImagePx;
         mLeftMarginPx = chipSpan.mLeftMarginPx;
         mRightMarginPx = chipSpan.mRightMarginPx;
         mMaxAvailableWidth = chipSpan.mMaxAvailableWidth;
@@ -155,6 +168,7 @@ public class ChipSpan extends ImageSpan implements Chip {
      */
     public void setChipHeight(int chipHeight) {
         mChipHeight = chipHeight;
+        invalidateCachedSize();
     }
 
     /**
@@ -168,6 +182,7 @@ public class ChipSpan extends ImageSpan implements Chip {
      */
     public void setChipVerticalSpacing(int chipVerticalSpacing) {
         mChipVerticalSpacing = chipVerticalSpacing;
+        invalidateCachedSize();
     }
 
     /**
@@ -228,7 +243,7 @@ public class ChipSpan extends ImageSpan implements Chip {
      * @see #setState(int[])
      */
     public void setBackgroundColor(@Nullable ColorStateList backgroundColor) {
-        mBackgroundColor = backgroundColor != null ? backgroundColor : mDefaultBackgroundColor;
+        mBackgroundColor = backgroundColor != null ? backgroundColor : mStyle.getBackgroundColor();
     }
 
     /**
@@ -289,53 +304,132 @@ public class ChipSpan extends ImageSpan implements Chip {
         if (mCachedSize == -1 && usingFontMetrics) {
             mIconWidth = (mIcon != null) ? calculateChipHeight(fm.top, fm.bottom) : 0;
 
-            int actualWidth = calculateActualWidth(paint);
-            mCachedSize = actualWidth;
-
-            if (mMaxAvailableWidth != -1) {
-                int maxAvailableWidthMinusMargins = mMaxAvailableWidth - mLeftMarginPx - mRightMarginPx;
-                if (actualWidth > maxAvailableWidthMinusMargins) {
-                    mTextToDraw = mText + mEllipsis;
-
-                    while ((calculateActualWidth(paint) > maxAvailableWidthMinusMargins) && mTextToDraw.length() > 0) {
-                        int lastCharacterIndex = mTextToDraw.length() - mEllipsis.length() - 1;
-                        if (lastCharacterIndex < 0) {
-                            break;
-                        }
-                        mTextToDraw = mTextToDraw.substring(0, lastCharacterIndex) + mEllipsis;
-                    }
-
-                    // Avoid a negative width
-                    mChipWidth = Math.max(0, maxAvailableWidthMinusMargins);
-                    mCachedSize = mMaxAvailableWidth;
-                }
+            // Start over from the full text in case the text was previously ellipsized to fit a smaller width
+            mTextToDraw = mText.toString();
+            // The text size is part of the measurement's cache key
+            if (mTextSize != -1) {
+                paint.setTextSize(mTextSize);
+            }
+            int maxAvailableWidthMinusMargins = (mMaxAvailableWidth != -1) ? mMaxAvailableWidth - mLeftMarginPx - mRightMarginPx : -1;
+
+            ChipMeasureCache.Measurement measurement = ChipMeasureCache.getDefault()
+                    .get(mTextToDraw, paint, calculateHorizontalPadding(), maxAvailableWidthMinusMargins, mStyle.getEllipsis());
+            if (measurement == null) {
+                measurement = measure(paint, maxAvailableWidthMinusMargins);
+            }
+
+            mChipWidth = measurement.getChipWidth();
+            if (measurement.getEllipsizedText() != null) {
+                mTextToDraw = measurement.getEllipsizedText();
+                mCachedSize = mMaxAvailableWidth;
+            } else {
+                mCachedSize = getWidth();
             }
         }
 
         return mCachedSize;
     }
 
-    private int calculateActualWidth(Paint paint) {
+    /**
+     * Measures the chip (ellipsizing the text if it doesn't fit within {@code maxAvailableWidthMinusMargins}) and caches the result.
+     */
+    private ChipMeasureCache.Measurement measure(Paint paint, int maxAvailableWidthMinusMargins) {
+        calculateActualWidth(paint);
+        String ellipsizedText = null;
+        // Both widths exclude the margins
+        if (maxAvailableWidthMinusMargins != -1 && mChipWidth > maxAvailableWidthMinusMargins) {
+            ellipsizedText = ellipsize(paint, maxAvailableWidthMinusMargins);
+
+            // Avoid a negative width
+            mChipWidth = Math.max(0, maxAvailableWidthMinusMargins);
+        }
+        return ChipMeasureCache.getDefault()
+                .put(mTextToDraw, paint, calculateHorizontalPadding(), maxAvailableWidthMinusMargins, mStyle.getEllipsis(), mChipWidth,
+                        ellipsizedText);
+    }
+
+    /**
+     * Finds the longest prefix of the text which, followed by the ellipsis, fits within {@code maxWidth}.
+     */
+    private String ellipsize(Paint paint, int maxWidth) {
         // Only change the text size if a text size was set
         if (mTextSize != -1) {
             paint.setTextSize(mTextSize);
         }
+        return ellipsize(paint, mText, mStyle.getEllipsis(), maxWidth - calculateHorizontalPadding());
+    }
+
+    /**
+     * Shared with {@link TextChipSpan}. Finds the longest prefix of {@code text} which, followed by {@code ellipsis}, is at most
+     * {@code maxTextWidth} wide when drawn with {@code paint}. Since the width grows with the length of the prefix, this binary searches over the
+     * prefix length so only O(log n) measurements are needed. The candidates are built up in a shared buffer so that only the returned text is
+     * allocated.
+     */
+    static String ellipsize(Paint paint, CharSequence text, String ellipsis, int maxTextWidth) {
+        int ellipsisLength = ellipsis.length();
+        int textLength = text.length();
+
+        if (sEllipsizeBuffer.length < textLength + ellipsisLength) {
+            sEllipsizeBuffer = new char[textLength + ellipsisLength];
+        }
+        char[] buffer = sEllipsizeBuffer;
+        TextUtils.getChars(text, 0, textLength, buffer, 0);
+
+        // If no prefix fits then we still show the ellipsis on its own
+        int low = 0;
+        int high = textLength;
+        while (low < high) {
+            int prefixLength = (low + high + 1) >>> 1;
+            ellipsis.getChars(0, ellipsisLength, buffer, prefixLength);
+            paint.getTextBounds(buffer, 0, prefixLength + ellipsisLength, sTextBounds);
+            boolean fits = sTextBounds.width() <= maxTextWidth;
+            // Put back the characters of the text that the ellipsis was written over
+            TextUtils.getChars(text, prefixLength, Math.min(textLength, prefixLength + ellipsisLength), buffer, prefixLength);
+            if (fits) {
+                low = prefixLength;
+            } else {
+                high = prefixLength - 1;
+            }
+        }
 
-        int totalPadding = mPaddingEdgePx;
+        int prefixLength = low;
+        // Don't split a surrogate pair
+        if (prefixLength > 0 && Character.isHighSurrogate(buffer[prefixLength - 1])) {
+            prefixLength--;
+        }
+        ellipsis.getChars(0, ellipsisLength, buffer, prefixLength);
+        return new String(buffer, 0, prefixLength + ellipsisLength);
+    }
+
+    private int calculateActualWidth(Paint paint) {
+        // Only change the text size if a text size was set
+        if (mTextSize != -1) {
+            paint.setTextSize(mTextSize);
+        }
 
         // Find text width
-        Rect bounds = new Rect();
-        paint.getTextBounds(mTextToDraw, 0, mTextToDraw.length(), bounds);
-        int textWidth = bounds.width();
+        paint.getTextBounds(mTextToDraw, 0, mTextToDraw.length(), sTextBounds);
+        return calculateActualWidth(sTextBounds.width());
+    }
+
+    private int calculateActualWidth(int textWidth) {
+        mChipWidth = calculateHorizontalPadding() + textWidth;
+        return getWidth();
+    }
+
+    /**
+     * @return the horizontal space inside the chip taken by everything but the text
+     */
+    private int calculateHorizontalPadding() {
+        int totalPadding = mStyle.getPaddingEdgePx();
 
         if (mIcon != null) {
-            totalPadding += mPaddingBetweenImagePx;
+            totalPadding += mStyle.getPaddingBetweenImagePx();
         } else {
-            totalPadding += mPaddingEdgePx;
+            totalPadding += mStyle.getPaddingEdgePx();
         }
 
-        mChipWidth = totalPadding + textWidth + mIconWidth;
-        return getWidth();
+        return totalPadding + mIconWidth;
     }
 
     public void invalidateCachedSize() {
@@ -352,16 +446,23 @@ public class ChipSpan extends ImageSpan implements Chip {
      * @param fm    the font metrics object to populate through {@link Paint#getFontMetricsInt(Paint.FontMetricsInt)}
      */
     private void adjustFontMetrics(Paint paint, Paint.FontMetricsInt fm) {
+        adjustFontMetrics(paint, fm, mChipHeight, mChipVerticalSpacing);
+    }
+
+    /**
+     * Shared with {@link TextChipSpan}, see {@link #adjustFontMetrics(Paint, Paint.FontMetricsInt)}.
+     */
+    static void adjustFontMetrics(Paint paint, Paint.FontMetricsInt fm, int chipHeight, int chipVerticalSpacing) {
         // Only actually adjust font metrics if we have a chip height set
-        if (mChipHeight != -1) {
+        if (chipHeight != -1) {
             paint.getFontMetricsInt(fm);
             int textHeight = fm.descent - fm.ascent;
             // Break up the vertical spacing in half because half will go above the chip, half will go below the chip
-            int halfSpacing = mChipVerticalSpacing / 2;
+            int halfSpacing = chipVerticalSpacing / 2;
 
             // Given that the text is centered vertically within the chip, the amount of space above or below the text (inbetween the text and chip)
             // is half their difference in height:
-            int spaceBetweenChipAndText = (mChipHeight - textHeight) / 2;
+            int spaceBetweenChipAndText = (chipHeight - textHeight) / 2;
 
             int textTop = fm.top;
             int chipTop = fm.top - spaceBetweenChipAndText;
@@ -415,18 +516,19 @@ public class ChipSpan extends ImageSpan implements Chip {
         int backgroundColor = mBackgroundColor.getColorForState(mStateSet, mBackgroundColor.getDefaultColor());
         paint.setColor(backgroundColor);
         int height = calculateChipHeight(top, bottom);
-        RectF rect = new RectF(x, top, x + mChipWidth, bottom);
+        sBackgroundRect.set(x, top, x + mChipWidth, bottom);
         int cornerRadius = (mCornerRadius != -1) ? mCornerRadius : height / 2;
-        canvas.drawRoundRect(rect, cornerRadius, cornerRadius, paint);
+        canvas.drawRoundRect(sBackgroundRect, cornerRadius, cornerRadius, paint);
         paint.setColor(mTextColor);
     }
 
-    private void drawText(Canvas canvas, float x, int top, int bottom, Paint paint, CharSequence text) {
+    private void drawText(Canvas canvas, float x, int top, int bottom, Paint paint, String text) {
         if (mTextSize != -1) {
             paint.setTextSize(mTextSize);
         }
         int height = calculateChipHeight(top, bottom);
-        Paint.FontMetrics fm = paint.getFontMetrics();
+        Paint.FontMetrics fm = sFontMetrics;
+        paint.getFontMetrics(fm);
 
         // The top value provided here is the y coordinate for the very top of the chip
         // The y coordinate we are calculating is where the baseline of the text will be drawn
@@ -437,10 +539,10 @@ public class ChipSpan extends ImageSpan implements Chip {
 
         // The x coordinate provided here is the left-most edge of the chip
         // If there is no icon or the icon is on the right, then the text will start at the left-most edge, but indented with the edge padding, so we
-        // add mPaddingEdgePx
+        // add the edge padding
         // If there is an icon and it's on the left, the text will start at the left-most edge, but indented by the combined width of the icon and
-        // the padding between the icon and text, so we add (mIconWidth + mPaddingBetweenImagePx)
-        float adjustedX = x + ((mIcon == null || !mShowIconOnLeft) ? mPaddingEdgePx : (mIconWidth + mPaddingBetweenImagePx));
+        // the padding between the icon and text, so we add (mIconWidth + the padding between the image and text)
+        float adjustedX = x + ((mIcon == null || !mShowIconOnLeft) ? mStyle.getPaddingEdgePx() : (mIconWidth + mStyle.getPaddingBetweenImagePx()));
 
         canvas.drawText(text, 0, text.length(), adjustedX, adjustedY, paint);
     }
@@ -470,19 +572,14 @@ public class ChipSpan extends ImageSpan implements Chip {
     private void drawIconBitmap(Canvas canvas, float x, int top, int bottom, Paint paint) {
         int height = calculateChipHeight(top, bottom);
 
-        // Create a scaled down version of the bitmap to fit within the circle (whose diameter == height)
-        Bitmap iconBitmap = Bitmap.createBitmap(mIcon.getIntrinsicWidth(), mIcon.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
-        Bitmap scaledIconBitMap = scaleDown(iconBitmap, (float) height * SCALE_PERCENT_OF_CHIP_HEIGHT, true);
-        iconBitmap.recycle();
-        Canvas bitmapCanvas = new Canvas(scaledIconBitMap);
-        mIcon.setBounds(0, 0, bitmapCanvas.getWidth(), bitmapCanvas.getHeight());
-        mIcon.draw(bitmapCanvas);
+        // Get a version of the icon scaled down to fit within the circle (whose diameter == height), which is only rasterized the first time
+        Bitmap iconBitmap = ChipIconCache.getDefault().getIcon(mIcon, (int) ((float) height * SCALE_PERCENT_OF_CHIP_HEIGHT));
 
         // We are drawing a square icon inside of a circle
         // The coordinates we pass to canvas.drawBitmap have to be for the top-left corner of the bitmap
         // The bitmap should be inset by half of (circle width - bitmap width)
         // Since it's a circle, the circle's width is equal to it's height which is equal to the chip height
-        float xInsetWithinCircle = (height - bitmapCanvas.getWidth()) / 2;
+        float xInsetWithinCircle = (height - iconBitmap.getWidth()) / 2;
 
         // The icon x coordinate is going to be insetWithinCircle pixels away from the left edge of the circle
         // If the icon is on the left, the left edge of the circle is just x
@@ -490,17 +587,10 @@ public class ChipSpan extends ImageSpan implements Chip {
         float iconX = mShowIconOnLeft ? (x + xInsetWithinCircle) : (x + mChipWidth - height + xInsetWithinCircle);
 
         // The y coordinate works the same way (only it's always from the top edge)
-        float yInsetWithinCircle = (height - bitmapCanvas.getHeight()) / 2;
+        float yInsetWithinCircle = (height - iconBitmap.getHeight()) / 2;
         float iconY = top + yInsetWithinCircle;
 
-        canvas.drawBitmap(scaledIconBitMap, iconX, iconY, paint);
-    }
-
-    private Bitmap scaleDown(Bitmap realImage, float maxImageSize, boolean filter) {
-        float ratio = Math.min(maxImageSize / realImage.getWidth(), maxImageSize / realImage.getHeight());
-        int width = Math.round(ratio * realImage.getWidth());
-        int height = Math.round(ratio * realImage.getHeight());
-        return Bitmap.createScaledBitmap(realImage, width, height, filter);
+        canvas.drawBitmap(iconBitmap, iconX, iconY, paint);
     }
 
     @Override
@@ -4,19 +4,45 @@ import android.content.Context;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.hootsuite.nachos.ChipConfiguration;
 
 public class ChipSpanChipCreator implements ChipCreator<ChipSpan> {
 
+    @Nullable
+    private ChipStyle mChipStyle;
+
     @Override
     public ChipSpan createChip(@NonNull Context context, @NonNull CharSequence text, Object data) {
-        return new ChipSpan(context, text, null, data);
+        return new ChipSpan(getChipStyle(context), text, null, data);
     }
 
     @Override
     public ChipSpan createChip(@NonNull Context context, @NonNull ChipSpan existingChip) {
-        return new ChipSpan(context, existingChip);
+        return new ChipSpan(getChipStyle(context), existingChip);
+    }
+
+    /**
+     * Returns the {@link ChipStyle} to create chips with for the given {@link Context}. The style is only read from resources again when the
+     * theme or configuration of the Context changes, so all the chips created by this ChipCreator share a single instance.
+     *
+     * @param context the {@link Context} that chips are being created with
+     * @return the shared {@link ChipStyle}
+     */
+    @NonNull
+    public ChipStyle getChipStyle(@NonNull Context context) {
+        ChipStyle chipStyle = mChipStyle;
+        if (chipStyle == null || !chipStyle.isValidFor(context)) {
+            chipStyle = new ChipStyle(context);
+            mChipStyle = chipStyle;
+        }
+        return chipStyle;
+    }
+
+    @Override
+    public boolean canConfigureInPlace(@NonNull ChipSpan chip) {
+        return true;
     }
 
     @Override
@@ -34,9 +60,8 @@ public class ChipSpanChipCreator implements ChipCreator<ChipSpan> {
             chip.setLeftMargin(chipHorizontalSpacing / 2);
             chip.setRightMargin(chipHorizontalSpacing / 2);
         }
-        if (chipBackground != null) {
-            chip.setBackgroundColor(chipBackground);
-        }
+        // A null background reverts the chip to its default background
+        chip.setBackgroundColor(chipBackground);
         if (chipCornerRadius != -1) {
             chip.setCornerRadius(chipCornerRadius);
         }
@@ -0,0 +1,97 @@
+package com.hootsuite.nachos.chip;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.hootsuite.nachos.R;
+
+/**
+ * The default appearance of a {@link ChipSpan}, read from the library's resources. A ChipStyle is immutable so a single instance can be shared by
+ * every chip created from the same {@link Context}, which saves each chip from looking up the same resources again.
+ * <p>
+ *     Since the resolved values depend on the theme and configuration of the Context they were read from, use {@link #isValidFor(Context)} to
+ *     check whether a cached ChipStyle can still be used.
+ * </p>
+ *
+ * @see ChipSpanChipCreator#getChipStyle(Context)
+ */
+public class ChipStyle {
+
+    private final Resources.Theme mTheme;
+    private final Configuration mConfiguration;
+
+    private final String mEllipsis;
+    private final ColorStateList mBackgroundColor;
+    private final int mTextColor;
+    private final int mIconBackgroundColor;
+    private final int mPaddingEdgePx;
+    private final int mPaddingBetweenImagePx;
+    private final int mLeftMarginPx;
+    private final int mRightMarginPx;
+
+    /**
+     * Reads the default chip appearance from resources.
+     *
+     * @param context the {@link Context} whose theme and configuration should be used to resolve the resources
+     */
+    public ChipStyle(@NonNull Context context) {
+        Resources resources = context.getResources();
+        mTheme = context.getTheme();
+        mConfiguration = new Configuration(resources.getConfiguration());
+
+        mEllipsis = context.getString(R.string.chip_ellipsis);
+
+        mBackgroundColor = ContextCompat.getColorStateList(context, R.color.chip_material_background);
+        mTextColor = ContextCompat.getColor(context, R.color.chip_default_text_color);
+        mIconBackgroundColor = ContextCompat.getColor(context, R.color.chip_default_icon_background_color);
+
+        mPaddingEdgePx = resources.getDimensionPixelSize(R.dimen.chip_default_padding_edge);
+        mPaddingBetweenImagePx = resources.getDimensionPixelSize(R.dimen.chip_default_padding_between_image);
+        mLeftMarginPx = resources.getDimensionPixelSize(R.dimen.chip_default_left_margin);
+        mRightMarginPx = resources.getDimensionPixelSize(R.dimen.chip_default_right_margin);
+    }
+
+    /**
+     * @param context the {@link Context} that chips are about to be created with
+     * @return true if this style was read with the same theme and configuration as {@code context} currently has
+     */
+    public boolean isValidFor(@NonNull Context context) {
+        return mTheme == context.getTheme() && mConfiguration.equals(context.getResources().getConfiguration());
+    }
+
+    public String getEllipsis() {
+        return mEllipsis;
+    }
+
+    public ColorStateList getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public int getIconBackgroundColor() {
+        return mIconBackgroundColor;
+    }
+
+    public int getPaddingEdgePx() {
+        return mPaddingEdgePx;
+    }
+
+    public int getPaddingBetweenImagePx() {
+        return mPaddingBetweenImagePx;
+    }
+
+    public int getLeftMarginPx() {
+        return mLeftMarginPx;
+    }
+
+    public int getRightMarginPx() {
+        return mRightMarginPx;
+    }
+}
@@ -0,0 +1,191 @@
+package com.hootsuite.nachos.chip;
+
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.text.style.ReplacementSpan;
+
+/**
+ * A lightweight Span that displays text (and no icon) inside of a material design chip. It looks like a {@link ChipSpan} without an icon but
+ * only holds its text, data, state and cached width: all of its styling comes from a {@link TextChipStyle} that is shared with the other chips
+ * created by the same {@link TextChipSpanChipCreator}. This makes each chip several times smaller than a ChipSpan, which matters when there
+ * are thousands of chips.
+ *
+ * @see TextChipSpanChipCreator
+ */
+public class TextChipSpan extends ReplacementSpan implements Chip {
+
+    private static final int[] EMPTY_STATE_SET = new int[]{};
+
+    // Scratch objects used while measuring and drawing so that neither allocates. Spans are only ever measured and drawn on the UI thread.
+    private static final Rect sTextBounds = new Rect();
+    private static final RectF sBackgroundRect = new RectF();
+    private static final Paint.FontMetrics sFontMetrics = new Paint.FontMetrics();
+
+    @NonNull
+    private final TextChipStyle mStyle;
+    @NonNull
+    private final CharSequence mText;
+    @Nullable
+    private final Object mData;
+    // The same instance as mText if it is a String, otherwise the text (possibly ellipsized) as a String
+    @NonNull
+    private String mTextToDraw;
+    @NonNull
+    private int[] mStateSet = EMPTY_STATE_SET;
+    // The width of the chip without its margins
+    private int mChipWidth = -1;
+
+    /**
+     * @param style the shared {@link TextChipStyle} the chip will be drawn with
+     * @param text  the text for the chip to display
+     * @param data  the data to associate with the chip, or null to associate no data
+     */
+    public TextChipSpan(@NonNull TextChipStyle style, @NonNull CharSequence text, @Nullable Object data) {
+        mStyle = style;
+        mText = text;
+        mData = data;
+        mTextToDraw = text.toString();
+    }
+
+    @NonNull
+    public TextChipStyle getStyle() {
+        return mStyle;
+    }
+
+    @Override
+    public CharSequence getText() {
+        return mText;
+    }
+
+    @Nullable
+    @Override
+    public Object getData() {
+        return mData;
+    }
+
+    @Override
+    public int getWidth() {
+        return mChipWidth != -1 ? (mStyle.getLeftMarginPx() + mChipWidth + mStyle.getRightMarginPx()) : -1;
+    }
+
+    /**
+     * Sets the UI state. This state will be reflected in the background color drawn for the chip.
+     *
+     * @param stateSet one of the state constants in {@link android.view.View}
+     * @see TextChipStyle#setBackgroundColor(ColorStateList)
+     */
+    @Override
+    public void setState(int[] stateSet) {
+        mStateSet = stateSet != null ? stateSet : EMPTY_STATE_SET;
+    }
+
+    /**
+     * Makes the chip measure itself again the next time it is laid out. Call this after changing an attribute of its {@link TextChipStyle} that
+     * affects its size.
+     */
+    public void invalidateCachedSize() {
+        mChipWidth = -1;
+    }
+
+    @Override
+    public int getSize(@NonNull Paint paint, CharSequence text, int start, int end, @Nullable Paint.FontMetricsInt fm) {
+        if (fm != null) {
+            ChipSpan.adjustFontMetrics(paint, fm, mStyle.getChipHeight(), mStyle.getChipVerticalSpacing());
+        }
+
+        if (mChipWidth == -1) {
+            // Start over from the full text in case the text was previously ellipsized to fit a smaller width
+            mTextToDraw = mText.toString();
+            // The text size is part of the measurement's cache key
+            setTextSize(paint);
+            int maxAvailableWidth = mStyle.getMaxAvailableWidth();
+            int maxAvailableWidthMinusMargins = (maxAvailableWidth != -1)
+                    ? maxAvailableWidth - mStyle.getLeftMarginPx() - mStyle.getRightMarginPx()
+                    : -1;
+
+            ChipMeasureCache measureCache = ChipMeasureCache.getDefault();
+            int padding = 2 * mStyle.getPaddingEdgePx();
+            ChipMeasureCache.Measurement measurement = measureCache.get(mTextToDraw, paint, padding, maxAvailableWidthMinusMargins,
+                    mStyle.getEllipsis());
+            if (measurement == null) {
+                int chipWidth = calculateChipWidth(paint, mTextToDraw);
+                String ellipsizedText = null;
+                if (maxAvailableWidthMinusMargins != -1 && chipWidth > maxAvailableWidthMinusMargins) {
+                    ellipsizedText = ellipsize(paint, maxAvailableWidthMinusMargins);
+                    // Avoid a negative width
+                    chipWidth = Math.max(0, maxAvailableWidthMinusMargins);
+                }
+                measurement = measureCache.put(mTextToDraw, paint, padding, maxAvailableWidthMinusMargins, mStyle.getEllipsis(),
+                        chipWidth, ellipsizedText);
+            }
+
+            mChipWidth = measurement.getChipWidth();
+            if (measurement.getEllipsizedText() != null) {
+                mTextToDraw = measurement.getEllipsizedText();
+            }
+        }
+
+        return getWidth();
+    }
+
+    private int calculateChipWidth(Paint paint, String text) {
+        setTextSize(paint);
+        paint.getTextBounds(text, 0, text.length(), sTextBounds);
+        return 2 * mStyle.getPaddingEdgePx() + sTextBounds.width();
+    }
+
+    /**
+     * Finds the longest prefix of the text which, followed by the ellipsis, fits within {@code maxWidth}.
+     */
+    private String ellipsize(Paint paint, int maxWidth) {
+        setTextSize(paint);
+        return ChipSpan.ellipsize(paint, mText, mStyle.getEllipsis(), maxWidth - 2 * mStyle.getPaddingEdgePx());
+    }
+
+    private void setTextSize(Paint paint) {
+        // Only change the text size if a text size was set
+        int textSize = mStyle.getTextSize();
+        if (textSize != -1) {
+            paint.setTextSize(textSize);
+        }
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas, CharSequence text, int start, int end, float x, int top, int y, int bottom, @NonNull Paint paint) {
+        // Shift everything by the left margin to create an empty space on the left
+        x += mStyle.getLeftMarginPx();
+        int chipHeight = mStyle.getChipHeight();
+        if (chipHeight != -1) {
+            // Vertically center the chip in the line
+            top += ((bottom - top) / 2) - (chipHeight / 2);
+            bottom = top + chipHeight;
+        }
+        int height = bottom - top;
+
+        // Background
+        ColorStateList backgroundColor = mStyle.getBackgroundColor();
+        paint.setColor(backgroundColor.getColorForState(mStateSet, backgroundColor.getDefaultColor()));
+        sBackgroundRect.set(x, top, x + mChipWidth, bottom);
+        int cornerRadius = mStyle.getCornerRadius() != -1 ? mStyle.getCornerRadius() : height / 2;
+        canvas.drawRoundRect(sBackgroundRect, cornerRadius, cornerRadius, paint);
+
+        // Text, positioned the same way as in ChipSpan
+        paint.setColor(mStyle.getTextColor());
+        setTextSize(paint);
+        Paint.FontMetrics fm = sFontMetrics;
+        paint.getFontMetrics(fm);
+        float textY = top + ((height / 2) + ((-fm.top - fm.bottom) / 2));
+        float textX = x + mStyle.getPaddingEdgePx();
+        canvas.drawText(mTextToDraw, 0, mTextToDraw.length(), textX, textY, paint);
+    }
+
+    @Override
+    public String toString() {
+        return mText.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.hootsuite.nachos.chip;
+
+import android.content.Context;
+import android.graphics.Color;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hootsuite.nachos.ChipConfiguration;
+
+/**
+ * Creates {@link TextChipSpan}s, which are much lighter than {@link ChipSpan}s but can't display an icon. All of the chips created by a
+ * TextChipSpanChipCreator share a single {@link TextChipStyle}, so each {@link com.hootsuite.nachos.NachoTextView NachoTextView} should have its
+ * own TextChipSpanChipCreator.
+ */
+public class TextChipSpanChipCreator implements ChipCreator<TextChipSpan> {
+
+    @Nullable
+    private TextChipStyle mChipStyle;
+
+    @Override
+    public TextChipSpan createChip(@NonNull Context context, @NonNull CharSequence text, @Nullable Object data) {
+        return new TextChipSpan(getChipStyle(context), text, data);
+    }
+
+    @Override
+    public TextChipSpan createChip(@NonNull Context context, @NonNull TextChipSpan existingChip) {
+        return new TextChipSpan(getChipStyle(context), existingChip.getText(), existingChip.getData());
+    }
+
+    /**
+     * Returns the {@link TextChipStyle} shared by all the chips created by this ChipCreator. Its resource defaults are only read again when the
+     * theme or configuration of the Context changes.
+     *
+     * @param context the {@link Context} that chips are being created with
+     * @return the shared {@link TextChipStyle}
+     */
+    @NonNull
+    public TextChipStyle getChipStyle(@NonNull Context context) {
+        TextChipStyle chipStyle = mChipStyle;
+        if (chipStyle == null) {
+            chipStyle = new TextChipStyle(new ChipStyle(context));
+            mChipStyle = chipStyle;
+        } else if (!chipStyle.getDefaults().isValidFor(context)) {
+            chipStyle.setDefaults(new ChipStyle(context));
+        }
+        return chipStyle;
+    }
+
+    @Override
+    public boolean canConfigureInPlace(@NonNull TextChipSpan chip) {
+        return true;
+    }
+
+    @Override
+    public void configureChip(@NonNull TextChipSpan chip, @NonNull ChipConfiguration chipConfiguration) {
+        int chipHorizontalSpacing = chipConfiguration.getChipHorizontalSpacing();
+        int chipCornerRadius = chipConfiguration.getChipCornerRadius();
+        int chipTextColor = chipConfiguration.getChipTextColor();
+        int chipTextSize = chipConfiguration.getChipTextSize();
+        int chipHeight = chipConfiguration.getChipHeight();
+        int chipVerticalSpacing = chipConfiguration.getChipVerticalSpacing();
+        int maxAvailableWidth = chipConfiguration.getMaxAvailableWidth();
+
+        // The style is shared so configuring it for every chip is redundant but cheap
+        TextChipStyle style = chip.getStyle();
+        if (chipHorizontalSpacing != -1) {
+            style.setLeftMargin(chipHorizontalSpacing / 2);
+            style.setRightMargin(chipHorizontalSpacing / 2);
+        }
+        // A null background reverts the chips to the default background
+        style.setBackgroundColor(chipConfiguration.getChipBackground());
+        if (chipCornerRadius != -1) {
+            style.setCornerRadius(chipCornerRadius);
+        }
+        if (chipTextColor != Color.TRANSPARENT) {
+            style.setTextColor(chipTextColor);
+        }
+        if (chipTextSize != -1) {
+            style.setTextSize(chipTextSize);
+        }
+        if (chipHeight != -1) {
+            style.setChipHeight(chipHeight);
+        }
+        if (chipVerticalSpacing != -1) {
+            style.setChipVerticalSpacing(chipVerticalSpacing);
+        }
+        if (maxAvailableWidth != -1) {
+            style.setMaxAvailableWidth(maxAvailableWidth);
+        }
+        chip.invalidateCachedSize();
+    }
+}
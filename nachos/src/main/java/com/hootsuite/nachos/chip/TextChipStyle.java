@@ -0,0 +1,164 @@
+package com.hootsuite.nachos.chip;
+
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The appearance of a group of {@link TextChipSpan}s. Unlike a {@link ChipSpan}, which holds its own copy of every attribute, a TextChipSpan
+ * reads all of its styling from a TextChipStyle that it shares with every other chip created by the same {@link TextChipSpanChipCreator}, so
+ * configuring the chips only changes this one object.
+ * <p>
+ *     Any attribute that isn't set (or is reset to its default value) falls back to the resource defaults held by a {@link ChipStyle}.
+ *     Changing an attribute that affects the size of the chips does not resize them on its own; the chips must also be told to invalidate their
+ *     cached width (which {@link TextChipSpanChipCreator#configureChip(TextChipSpan, com.hootsuite.nachos.ChipConfiguration)} does).
+ * </p>
+ */
+public class TextChipStyle {
+
+    @NonNull
+    private ChipStyle mDefaults;
+
+    @Nullable
+    private ColorStateList mBackgroundColor;
+    private int mTextColor = Color.TRANSPARENT;
+    private int mCornerRadius = -1;
+    private int mTextSize = -1;
+    private int mLeftMarginPx = -1;
+    private int mRightMarginPx = -1;
+    private int mChipHeight = -1;
+    private int mChipVerticalSpacing = 0;
+    private int mMaxAvailableWidth = -1;
+
+    /**
+     * @param defaults the resource defaults to use for any attribute that isn't set
+     */
+    public TextChipStyle(@NonNull ChipStyle defaults) {
+        mDefaults = defaults;
+    }
+
+    @NonNull
+    public ChipStyle getDefaults() {
+        return mDefaults;
+    }
+
+    /**
+     * Replaces the resource defaults, for instance after the configuration of the {@link android.content.Context} they were read from changed.
+     * Attributes that were explicitly set are kept.
+     *
+     * @param defaults the new resource defaults
+     */
+    public void setDefaults(@NonNull ChipStyle defaults) {
+        mDefaults = defaults;
+    }
+
+    @NonNull
+    public ColorStateList getBackgroundColor() {
+        return mBackgroundColor != null ? mBackgroundColor : mDefaults.getBackgroundColor();
+    }
+
+    /**
+     * @param backgroundColor the background for the different chip states, or {@code null} to revert to the default background
+     */
+    public void setBackgroundColor(@Nullable ColorStateList backgroundColor) {
+        mBackgroundColor = backgroundColor;
+    }
+
+    public int getTextColor() {
+        return mTextColor != Color.TRANSPARENT ? mTextColor : mDefaults.getTextColor();
+    }
+
+    /**
+     * @param textColor the text color (as a hexadecimal number in the form 0xAARRGGBB), or {@link Color#TRANSPARENT} to revert to the default
+     */
+    public void setTextColor(int textColor) {
+        mTextColor = textColor;
+    }
+
+    /**
+     * @return the corner radius in pixels, or -1 if the corners are fully rounded
+     */
+    public int getCornerRadius() {
+        return mCornerRadius;
+    }
+
+    public void setCornerRadius(int cornerRadius) {
+        mCornerRadius = cornerRadius;
+    }
+
+    /**
+     * @return the font size in pixels, or -1 if the chips use the font size of the text view containing them
+     */
+    public int getTextSize() {
+        return mTextSize;
+    }
+
+    public void setTextSize(int textSize) {
+        mTextSize = textSize;
+    }
+
+    public int getLeftMarginPx() {
+        return mLeftMarginPx != -1 ? mLeftMarginPx : mDefaults.getLeftMarginPx();
+    }
+
+    /**
+     * @param leftMarginPx the left margin in pixels, or -1 to revert to the default margin
+     */
+    public void setLeftMargin(int leftMarginPx) {
+        mLeftMarginPx = leftMarginPx;
+    }
+
+    public int getRightMarginPx() {
+        return mRightMarginPx != -1 ? mRightMarginPx : mDefaults.getRightMarginPx();
+    }
+
+    /**
+     * @param rightMarginPx the right margin in pixels, or -1 to revert to the default margin
+     */
+    public void setRightMargin(int rightMarginPx) {
+        mRightMarginPx = rightMarginPx;
+    }
+
+    /**
+     * @return the height of the chips in pixels, or -1 if the chips are as tall as one line of text
+     * @see ChipSpan#setChipHeight(int)
+     */
+    public int getChipHeight() {
+        return mChipHeight;
+    }
+
+    public void setChipHeight(int chipHeight) {
+        mChipHeight = chipHeight;
+    }
+
+    /**
+     * @see ChipSpan#setChipVerticalSpacing(int)
+     */
+    public int getChipVerticalSpacing() {
+        return mChipVerticalSpacing;
+    }
+
+    public void setChipVerticalSpacing(int chipVerticalSpacing) {
+        mChipVerticalSpacing = chipVerticalSpacing;
+    }
+
+    /**
+     * @return the width (including margins) that chips are ellipsized to fit within, or -1 if the chips are never ellipsized
+     */
+    public int getMaxAvailableWidth() {
+        return mMaxAvailableWidth;
+    }
+
+    public void setMaxAvailableWidth(int maxAvailableWidth) {
+        mMaxAvailableWidth = maxAvailableWidth;
+    }
+
+    public int getPaddingEdgePx() {
+        return mDefaults.getPaddingEdgePx();
+    }
+
+    public String getEllipsis() {
+        return mDefaults.getEllipsis();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hootsuite.nachos.terminator;
+
+import java.util.Arrays;
+
+/**
+ * A lookup table from chip terminator characters to their behaviors that doesn't box the characters being looked up. ASCII characters (by far
+ * the most common terminators) are looked up directly in an array, any other characters are binary searched for in a sorted array.
+ */
+class ChipTerminatorTable {
+
+    /**
+     * Returned from {@link #getBehavior(char)} for characters that aren't chip terminators
+     */
+    static final int NOT_A_TERMINATOR = Integer.MIN_VALUE;
+
+    private static final int ASCII_SIZE = 128;
+
+    private final int[] mAsciiBehaviors = new int[ASCII_SIZE];
+    // Sorted, with mOtherBehaviors[i] being the behavior of mOtherCharacters[i]
+    private char[] mOtherCharacters = new char[0];
+    private int[] mOtherBehaviors = new int[0];
+
+    ChipTerminatorTable() {
+        Arrays.fill(mAsciiBehaviors, NOT_A_TERMINATOR);
+    }
+
+    /**
+     * Adds a chip terminator, replacing the behavior of {@code character} if it was already a chip terminator.
+     */
+    void put(char character, int behavior) {
+        if (character < ASCII_SIZE) {
+            mAsciiBehaviors[character] = behavior;
+            return;
+        }
+
+        int index = Arrays.binarySearch(mOtherCharacters, character);
+        if (index >= 0) {
+            mOtherBehaviors[index] = behavior;
+            return;
+        }
+
+        int insertionPoint = -(index + 1);
+        int size = mOtherCharacters.length;
+        char[] characters = new char[size + 1];
+        int[] behaviors = new int[size + 1];
+        System.arraycopy(mOtherCharacters, 0, characters, 0, insertionPoint);
+        System.arraycopy(mOtherBehaviors, 0, behaviors, 0, insertionPoint);
+        characters[insertionPoint] = character;
+        behaviors[insertionPoint] = behavior;
+        System.arraycopy(mOtherCharacters, insertionPoint, characters, insertionPoint + 1, size - insertionPoint);
+        System.arraycopy(mOtherBehaviors, insertionPoint, behaviors, insertionPoint + 1, size - insertionPoint);
+        mOtherCharacters = characters;
+        mOtherBehaviors = behaviors;
+    }
+
+    /**
+     * @return the behavior of {@code character} or {@link #NOT_A_TERMINATOR} if it isn't a chip terminator
+     */
+    int getBehavior(char character) {
+        if (character < ASCII_SIZE) {
+            return mAsciiBehaviors[character];
+        }
+        int index = Arrays.binarySearch(mOtherCharacters, character);
+        return index >= 0 ? mOtherBehaviors[index] : NOT_A_TERMINATOR;
+    }
+
+    boolean isChipTerminator(char character) {
+        return getBehavior(character) != NOT_A_TERMINATOR;
+    }
+}
@@ -3,27 +3,42 @@ package com.hootsuite.nachos.terminator;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextUtils;
 
 import com.hootsuite.nachos.tokenizer.ChipTokenizer;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class DefaultChipTerminatorHandler implements ChipTerminatorHandler {
 
+    // Null when there are no chip terminators
     @Nullable
-    private Map<Character, Integer> mChipTerminators;
+    private ChipTerminatorTable mChipTerminators;
     private int mPasteBehavior = BEHAVIOR_CHIPIFY_TO_TERMINATOR;
 
     @Override
     public void setChipTerminators(@Nullable Map<Character, Integer> chipTerminators) {
-        mChipTerminators = chipTerminators;
+        if (chipTerminators == null) {
+            mChipTerminators = null;
+            return;
+        }
+
+        mChipTerminators = new ChipTerminatorTable();
+        for (Map.Entry<Character, Integer> chipTerminator : chipTerminators.entrySet()) {
+            if (chipTerminator.getKey() != null && chipTerminator.getValue() != null) {
+                mChipTerminators.put(chipTerminator.getKey(), chipTerminator.getValue());
+            }
+        }
     }
 
     @Override
     public void addChipTerminator(char character, int behavior) {
         if (mChipTerminators == null) {
-            mChipTerminators = new HashMap<>();
+            mChipTerminators = new ChipTerminatorTable();
         }
 
         mChipTerminators.put(character, behavior);
@@ -41,14 +56,65 @@ public class DefaultChipTerminatorHandler implements ChipTerminatorHandler {
             return -1;
         }
 
-        TextIterator textIterator = new TextIterator(text, start, end);
+        if (isPasteEvent) {
+            return findAndHandlePastedChipTerminators(tokenizer, text, start, end);
+        }
+
+        return handleChipTerminators(new TextIterator(text, start, end), tokenizer, false);
+    }
+
+    /**
+     * Handles the chip terminators in pasted text in time linear in the length of the text. Rather than editing {@code text} for every chip
+     * terminator in the pasted text (each edit shifting the rest of the text, updating every span and notifying every watcher) the chip
+     * terminators are handled in a plain text copy of {@code text} that has no spans at all, while the chips created along the way are set
+     * aside with their positions. The part of the copy that changed is then committed to {@code text} in a single edit with the chips attached.
+     * <p>
+     *     Since the copy has no spans, this relies on the tokenizer finding tokens from the characters of the text alone (as
+     *     {@link com.hootsuite.nachos.tokenizer.SpanChipTokenizer SpanChipTokenizer} does).
+     * </p>
+     */
+    private int findAndHandlePastedChipTerminators(@NonNull ChipTokenizer tokenizer, @NonNull Editable text, int start, int end) {
+        // Most pastes won't contain any chip terminators so check for that before copying anything
+        if (!containsChipTerminator(text, start, end)) {
+            return -1;
+        }
+
+        Editable scratchText = new SpannableStringBuilder(text.toString());
+        ScratchTextIterator textIterator = new ScratchTextIterator(scratchText, start, end);
+        int selectionIndex = handleChipTerminators(textIterator, tokenizer, true);
+
+        if (textIterator.hasChanges()) {
+            int changeStart = textIterator.getChangeStart();
+            int unchangedSuffixLength = textIterator.getUnchangedSuffixLength();
+            text.replace(changeStart, text.length() - unchangedSuffixLength,
+                    textIterator.getChangedText(changeStart, scratchText.length() - unchangedSuffixLength));
+        }
+        if (textIterator.isTerminateAllTokensRequested()) {
+            // Any part of the text may be chipified, along with the chips already in it, so this is done on the text itself
+            tokenizer.terminateAllTokens(text);
+            selectionIndex = text.length();
+        }
+        return selectionIndex;
+    }
+
+    private boolean containsChipTerminator(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (isChipTerminator(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int handleChipTerminators(TextIterator textIterator, ChipTokenizer tokenizer, boolean isPasteEvent) {
         int selectionIndex = -1;
 
         characterLoop:
         while (textIterator.hasNextCharacter()) {
             char theChar = textIterator.nextCharacter();
-            if (isChipTerminator(theChar)) {
-                int behavior = (isPasteEvent && mPasteBehavior != PASTE_BEHAVIOR_USE_DEFAULT) ? mPasteBehavior : mChipTerminators.get(theChar);
+            int terminatorBehavior = mChipTerminators.getBehavior(theChar);
+            if (terminatorBehavior != ChipTerminatorTable.NOT_A_TERMINATOR) {
+                int behavior = (isPasteEvent && mPasteBehavior != PASTE_BEHAVIOR_USE_DEFAULT) ? mPasteBehavior : terminatorBehavior;
                 int newSelection = -1;
                 switch (behavior) {
                     case BEHAVIOR_CHIPIFY_ALL:
@@ -73,6 +139,11 @@ public class DefaultChipTerminatorHandler implements ChipTerminatorHandler {
 
     private int handleChipifyAll(TextIterator textIterator, ChipTokenizer tokenizer) {
         textIterator.deleteCharacter(true);
+        if (textIterator instanceof ScratchTextIterator) {
+            // Done once the scratch text has been committed (see findAndHandlePastedChipTerminators(...))
+            ((ScratchTextIterator) textIterator).requestTerminateAllTokens();
+            return -1;
+        }
         tokenizer.terminateAllTokens(textIterator.getText());
         return textIterator.totalLength();
     }
@@ -109,6 +180,127 @@ public class DefaultChipTerminatorHandler implements ChipTerminatorHandler {
     }
 
     private boolean isChipTerminator(char character) {
-        return mChipTerminators != null && mChipTerminators.keySet().contains(character);
+        return mChipTerminators != null && mChipTerminators.isChipTerminator(character);
+    }
+
+    /**
+     * A {@link TextIterator} over a plain text copy of the text that keeps track of which part of the copy has been changed. Only the text of
+     * the chips is put in the copy, so that editing the copy never has to update any spans, and the spans of the chips are kept aside until
+     * the changes are committed.
+     */
+    private static class ScratchTextIterator extends TextIterator {
+
+        private boolean mChanged;
+        private int mChangeStart;
+        private int mUnchangedSuffixLength;
+        private boolean mTerminateAllTokensRequested;
+        // The spans of the inserted chips, in the order they appear in the text
+        private final List<SpanPosition> mSpans = new ArrayList<>();
+
+        ScratchTextIterator(Editable text, int start, int end) {
+            super(text, start, end);
+            mChangeStart = text.length();
+            mUnchangedSuffixLength = text.length();
+        }
+
+        boolean hasChanges() {
+            return mChanged;
+        }
+
+        /**
+         * @return the index of the first character that was changed
+         */
+        int getChangeStart() {
+            return mChangeStart;
+        }
+
+        /**
+         * @return the number of characters at the end of the text that have not been changed
+         */
+        int getUnchangedSuffixLength() {
+            return mUnchangedSuffixLength;
+        }
+
+        /**
+         * Records that all the tokens in the text should be terminated once the changes have been committed.
+         */
+        void requestTerminateAllTokens() {
+            mTerminateAllTokensRequested = true;
+        }
+
+        boolean isTerminateAllTokensRequested() {
+            return mTerminateAllTokensRequested;
+        }
+
+        /**
+         * @return the changed text from {@code start} to {@code end} (which must contain every change) with the spans of the inserted chips
+         */
+        CharSequence getChangedText(int start, int end) {
+            SpannableStringBuilder changedText = new SpannableStringBuilder(TextUtils.substring(getText(), start, end));
+            for (SpanPosition span : mSpans) {
+                changedText.setSpan(span.mSpan, span.mStart - start, span.mEnd - start, span.mFlags);
+            }
+            return changedText;
+        }
+
+        /**
+         * Records that the text from {@code start} to {@code end} (in the current text) is about to be replaced by {@code newLength} characters.
+         */
+        private void recordChange(int start, int end, int newLength) {
+            mChanged = true;
+            mChangeStart = Math.min(mChangeStart, start);
+            mUnchangedSuffixLength = Math.min(mUnchangedSuffixLength, totalLength() - end);
+
+            // Text is changed from start to end so this only ever has to look at the last few spans
+            for (int i = mSpans.size() - 1; i >= 0; i--) {
+                SpanPosition span = mSpans.get(i);
+                if (span.mEnd <= start) {
+                    break;
+                }
+                if (span.mStart >= end) {
+                    span.mStart += newLength - (end - start);
+                    span.mEnd += newLength - (end - start);
+                } else {
+                    // The chip's text is being replaced
+                    mSpans.remove(i);
+                }
+            }
+        }
+
+        @Override
+        public void deleteCharacter(boolean maintainIndex) {
+            recordChange(getIndex(), getIndex() + 1, 0);
+            super.deleteCharacter(maintainIndex);
+        }
+
+        @Override
+        public void replace(int replaceStart, int replaceEnd, CharSequence chippedText) {
+            recordChange(replaceStart, replaceEnd, chippedText.length());
+            super.replace(replaceStart, replaceEnd, chippedText.toString());
+
+            if (chippedText instanceof Spanned) {
+                Spanned chippedSpanned = (Spanned) chippedText;
+                Object[] spans = chippedSpanned.getSpans(0, chippedSpanned.length(), Object.class);
+                for (Object span : spans) {
+                    mSpans.add(new SpanPosition(span, replaceStart + chippedSpanned.getSpanStart(span),
+                            replaceStart + chippedSpanned.getSpanEnd(span), chippedSpanned.getSpanFlags(span)));
+                }
+            }
+        }
+    }
+
+    private static class SpanPosition {
+
+        private final Object mSpan;
+        private int mStart;
+        private int mEnd;
+        private final int mFlags;
+
+        SpanPosition(Object span, int start, int end, int flags) {
+            mSpan = span;
+            mStart = start;
+            mEnd = end;
+            mFlags = flags;
+        }
     }
 }
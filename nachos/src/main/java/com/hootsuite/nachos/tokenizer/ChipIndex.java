@@ -0,0 +1,258 @@
+package com.hootsuite.nachos.tokenizer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.text.NoCopySpan;
+import android.text.Spannable;
+import android.text.SpanWatcher;
+import android.text.Spanned;
+
+import com.hootsuite.nachos.chip.Chip;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An ordered index of the chips of a single type contained in a {@link Spannable}.
+ * <p>
+ *     The index attaches itself to the text as a {@link SpanWatcher} (see {@link #attach(Spannable, Class)}) so that it is kept in sync as chips
+ *     are added and removed. Chips are kept in the order they appear in the text which allows chips to be looked up by range through a binary
+ *     search and counted in constant time, rather than walking every span in the text through {@link Spanned#getSpans(int, int, Class)}.
+ * </p>
+ * <p>
+ *     Chips are assumed not to overlap one another (this is always the case for chips created by {@link SpanChipTokenizer}). Since edits to the
+ *     text never change the relative order of non-overlapping spans, only chips that are explicitly moved through
+ *     {@link Spannable#setSpan(Object, int, int, int)} need to be re-sorted. If the index ever finds itself out of sync with the text it simply
+ *     rebuilds itself from the spans in the text on the next query.
+ * </p>
+ * <p>
+ *     The index is a {@link NoCopySpan} so that copies of the text (made through the copy constructors of the Spanned classes) don't carry the
+ *     index along, which would keep the original text reachable and forward the copy's span changes to the index of the original text.
+ * </p>
+ *
+ * @param <C> the type of {@link Chip} to index
+ */
+class ChipIndex<C extends Chip> implements SpanWatcher, NoCopySpan {
+
+    @NonNull
+    private final Spannable mText;
+    @NonNull
+    private final Class<C> mChipClass;
+    private final List<C> mChips = new ArrayList<>();
+    private boolean mDirty = true;
+
+    private ChipIndex(@NonNull Spannable text, @NonNull Class<C> chipClass) {
+        mText = text;
+        mChipClass = chipClass;
+    }
+
+    /**
+     * Returns the index of {@code chipClass} chips attached to {@code text}, attaching a new one if none exists yet.
+     *
+     * @param text      the text whose chips should be indexed
+     * @param chipClass the type of chip to index
+     * @return the index attached to {@code text}
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    static <C extends Chip> ChipIndex<C> attach(@NonNull Spannable text, @NonNull Class<C> chipClass) {
+        // The index always covers the full text so it can be found by querying the very start of the text
+        ChipIndex[] indexes = text.getSpans(0, 0, ChipIndex.class);
+        if (indexes != null) {
+            for (ChipIndex index : indexes) {
+                if (index.mText == text && index.mChipClass == chipClass) {
+                    return (ChipIndex<C>) index;
+                }
+            }
+        }
+
+        ChipIndex<C> index = new ChipIndex<>(text, chipClass);
+        text.setSpan(index, 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        return index;
+    }
+
+    /**
+     * @return the number of chips in the text
+     */
+    int size() {
+        ensureValid();
+        return mChips.size();
+    }
+
+    /**
+     * Finds all the chips that overlap the given range, using the same rules as {@link Spanned#getSpans(int, int, Class)}.
+     *
+     * @param start the start of the range (inclusive)
+     * @param end   the end of the range (exclusive)
+     * @return the chips within the range, in the order they appear in the text
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    C[] findChips(int start, int end) {
+        ensureValid();
+
+        int first = firstChipEndingAfter(start, start == end);
+        int last = first;
+        while (last < mChips.size() && startsBefore(mChips.get(last), end, start == end)) {
+            last++;
+        }
+
+        C[] chips = (C[]) Array.newInstance(mChipClass, last - first);
+        if (validate(first, last)) {
+            return mChips.subList(first, last).toArray(chips);
+        }
+        // One of the chips was no longer in the text so rebuild and try again
+        return findChips(start, end);
+    }
+
+    /**
+     * Binary searches for the first chip whose end is after {@code offset} (or at {@code offset} if {@code inclusive}).
+     * Since chips do not overlap, chip ends are in the same order as chip starts.
+     */
+    private int firstChipEndingAfter(int offset, boolean inclusive) {
+        int low = 0;
+        int high = mChips.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int chipEnd = mText.getSpanEnd(mChips.get(mid));
+            if (chipEnd > offset || (inclusive && chipEnd == offset)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsBefore(C chip, int offset, boolean inclusive) {
+        int chipStart = mText.getSpanStart(chip);
+        return chipStart < offset || (inclusive && chipStart == offset);
+    }
+
+    /**
+     * @return true if every chip in [first, last) is still in the text, otherwise marks the index dirty and returns false
+     */
+    private boolean validate(int first, int last) {
+        for (int i = first; i < last; i++) {
+            if (mText.getSpanStart(mChips.get(i)) < 0) {
+                mDirty = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureValid() {
+        if (!mDirty) {
+            return;
+        }
+        mChips.clear();
+        C[] chips = mText.getSpans(0, mText.length(), mChipClass);
+        if (chips != null) {
+            Arrays.sort(chips, new Comparator<C>() {
+                @Override
+                public int compare(C lhs, C rhs) {
+                    return mText.getSpanStart(lhs) - mText.getSpanStart(rhs);
+                }
+            });
+            mChips.addAll(Arrays.asList(chips));
+        }
+        mDirty = false;
+    }
+
+    /**
+     * Finds the position of {@code chip} in {@link #mChips} given that it starts (or started) at {@code start}.
+     *
+     * @return the position of the chip or -1 if it isn't in the index
+     */
+    private int indexOf(Object chip, int start) {
+        // Find the first chip starting at or after start...
+        int low = 0;
+        int high = mChips.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            C midChip = mChips.get(mid);
+            int midStart = (midChip == chip) ? start : mText.getSpanStart(midChip);
+            if (midStart < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // ... then look through any chips sharing that start (which can happen while chips are collapsed by a deletion)
+        for (int i = low; i < mChips.size(); i++) {
+            C candidate = mChips.get(i);
+            if (candidate == chip) {
+                return i;
+            }
+            if (mText.getSpanStart(candidate) != start) {
+                break;
+            }
+        }
+        return mChips.indexOf(chip);
+    }
+
+    private int insertionPointFor(int start) {
+        int low = 0;
+        int high = mChips.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mText.getSpanStart(mChips.get(mid)) <= start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Nullable
+    private C asChip(Spannable text, Object what) {
+        if (text != mText || mDirty || !mChipClass.isInstance(what)) {
+            return null;
+        }
+        return mChipClass.cast(what);
+    }
+
+    @Override
+    public void onSpanAdded(Spannable text, Object what, int start, int end) {
+        C chip = asChip(text, what);
+        if (chip != null) {
+            mChips.add(insertionPointFor(start), chip);
+        }
+    }
+
+    @Override
+    public void onSpanRemoved(Spannable text, Object what, int start, int end) {
+        C chip = asChip(text, what);
+        if (chip != null) {
+            int index = indexOf(chip, start);
+            if (index >= 0) {
+                mChips.remove(index);
+            }
+        }
+    }
+
+    @Override
+    public void onSpanChanged(Spannable text, Object what, int ostart, int oend, int nstart, int nend) {
+        C chip = asChip(text, what);
+        if (chip == null) {
+            return;
+        }
+        // Text edits preserve the order of chips so the chip will usually still be in place relative to its neighbours
+        int index = indexOf(chip, nstart);
+        if (index < 0) {
+            mDirty = true;
+            return;
+        }
+        boolean afterPrevious = index == 0 || mText.getSpanStart(mChips.get(index - 1)) <= nstart;
+        boolean beforeNext = index == mChips.size() - 1 || nstart <= mText.getSpanStart(mChips.get(index + 1));
+        if (!afterPrevious || !beforeNext) {
+            mChips.remove(index);
+            mChips.add(insertionPointFor(nstart), chip);
+        }
+    }
+}
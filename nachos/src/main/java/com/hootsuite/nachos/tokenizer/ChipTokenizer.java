@@ -3,12 +3,18 @@ package com.hootsuite.nachos.tokenizer;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.text.Editable;
+import android.text.SpannableStringBuilder;
 import android.text.Spanned;
 import android.util.Pair;
 
 import com.hootsuite.nachos.ChipConfiguration;
 import com.hootsuite.nachos.chip.Chip;
+import com.hootsuite.nachos.chip.ChipInfo;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -62,12 +68,62 @@ public interface ChipTokenizer {
     @NonNull
     List<Pair<Integer, Integer>> findAllTokens(CharSequence text);
 
+    /**
+     * Searches through {@code text} for any tokens, like {@link #findAllTokens(CharSequence)}, but returns the locations without boxing them.
+     * Implementations that can find tokens without going through {@link #findAllTokens(CharSequence)} should override this method.
+     *
+     * @param text the text in which to search for un-terminated tokens
+     * @return the (startIndex, endIndex) ranges of all unterminated tokens, in the order they appear in the text
+     */
+    @NonNull
+    default TokenRanges findAllTokenRanges(CharSequence text) {
+        List<Pair<Integer, Integer>> tokens = new ArrayList<>(findAllTokens(text));
+        Collections.sort(tokens, new Comparator<Pair<Integer, Integer>>() {
+            @Override
+            public int compare(Pair<Integer, Integer> lhs, Pair<Integer, Integer> rhs) {
+                return lhs.first - rhs.first;
+            }
+        });
+        TokenRanges tokenRanges = new TokenRanges(tokens.size());
+        for (Pair<Integer, Integer> token : tokens) {
+            tokenRanges.add(token.first, token.second);
+        }
+        return tokenRanges;
+    }
+
+    /**
+     * Checks whether {@code text} contains any tokens. Implementations that can stop searching at the first token should override this method.
+     *
+     * @param text the text in which to search for un-terminated tokens
+     * @return true if there is at least one unterminated token in {@code text}
+     */
+    default boolean hasUnterminatedTokens(CharSequence text) {
+        return !findAllTokenRanges(text).isEmpty();
+    }
+
     /**
      * Returns <code>text</code>, modified, if necessary, to ensure that
      * it ends with a token terminator (for example a space or comma).
      */
     CharSequence terminateToken(CharSequence text, @Nullable Object data);
 
+    /**
+     * Terminates each of the provided {@link ChipInfo}s, in order, and returns the concatenation of the results. This is equivalent to calling
+     * {@link #terminateToken(CharSequence, Object)} for each item and appending the results, but implementations can override it to build the
+     * text in a single pass.
+     *
+     * @param chips the text and data of the chips to create
+     * @return the text containing all of the created chips
+     */
+    @NonNull
+    default CharSequence terminateTokens(@NonNull List<ChipInfo> chips) {
+        SpannableStringBuilder text = new SpannableStringBuilder();
+        for (ChipInfo chip : chips) {
+            text.append(terminateToken(chip.getText(), chip.getData()));
+        }
+        return text;
+    }
+
     /**
      * Terminates (converts from token into chip) all unterminated tokens in the provided text.
      * This method CAN alter the provided text.
@@ -105,6 +161,16 @@ public interface ChipTokenizer {
     @NonNull
     Chip[] findAllChips(int start, int end, Spanned text);
 
+    /**
+     * Counts the chips in {@code text}. Implementations that can count chips without collecting them all should override this method.
+     *
+     * @param text the text in which to count chips
+     * @return the number of chips in {@code text}
+     */
+    default int countChips(Spanned text) {
+        return findAllChips(0, text.length(), text).length;
+    }
+
     /**
      * Effectively does the opposite of {@link #terminateToken(CharSequence, Object)} by reverting the provided chip back into a token.
      * This method CAN alter the provided text.
@@ -122,6 +188,20 @@ public interface ChipTokenizer {
      */
     void deleteChip(Chip chip, Editable text);
 
+    /**
+     * Removes several chips and any text they encompass from {@code text}. Implementations should override this to remove the chips with as few
+     * edits as possible (deleting each run of adjacent chips at once for instance) since removing chips one by one is slow when many chips are
+     * removed at once (when all of the text is selected and deleted for instance). This method CAN alter the provided text.
+     *
+     * @param chips the chips to remove, in any order
+     * @param text  the text to remove the chips from
+     */
+    default void deleteChips(@NonNull Collection<? extends Chip> chips, @NonNull Editable text) {
+        for (Chip chip : chips) {
+            deleteChip(chip, text);
+        }
+    }
+
     /**
      * Removes a chip, any text it encompasses AND any padding text (such as spaces) that may have been inserted when the chip was created in
      * {@link #terminateToken(CharSequence, Object)} or after. This method CAN alter the provided text.
@@ -0,0 +1,136 @@
+package com.hootsuite.nachos.tokenizer;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.hootsuite.nachos.chip.Chip;
+import com.hootsuite.nachos.chip.ChipCreator;
+import com.hootsuite.nachos.chip.ChipSpan;
+
+/**
+ * A {@link ChipTokenizer} that stores each chip as a single {@link #CHIP_CHARACTER} (the Unicode object replacement character, U+FFFC) in the
+ * text. The chip's text and data are held only by the chip span attached to that character, so:
+ *     <ul>
+ *         <li>Each chip adds one character to the text instead of the length of its text plus the four separator characters used by
+ *         {@link SpanChipTokenizer}</li>
+ *         <li>Tokens are simply the text between two chip characters, so finding them doesn't have to keep track of whether it is inside or
+ *         outside of a chip</li>
+ *     </ul>
+ * Each terminated token will therefore look like the following (this is what will be returned from
+ * {@link #terminateToken(CharSequence, Object)}):
+ * <pre>
+ *  -------------------------
+ *  | SpannableString       |
+ *  |   ----------------    |
+ *  |   | ChipSpan     |    |
+ *  |   |              |    |
+ *  |   |    U+FFFC    |    |
+ *  |   |              |    |
+ *  |   ----------------    |
+ *  -------------------------
+ * </pre>
+ * Keyboards treat the object replacement character as a word boundary (it isn't a letter) so autocorrect and suggestions still apply to each
+ * token being typed on its own, without needing spaces around the chips. Since the chip text isn't in the text itself, keyboards never offer
+ * corrections for the contents of a chip. The chips used with this tokenizer must draw their own text (like {@link ChipSpan} does) rather than
+ * relying on the underlying text.
+ *
+ * @see SpanChipTokenizer
+ */
+public class CompactChipTokenizer<C extends Chip> extends SpanChipTokenizer<C> {
+
+    /**
+     * The character each chip occupies in the text: the Unicode object replacement character, which is meant to stand in for an embedded object.
+     */
+    public static final char CHIP_CHARACTER = '\uFFFC';
+
+    private static final String CHIP_TEXT = Character.toString(CHIP_CHARACTER);
+
+    public CompactChipTokenizer(Context context, @NonNull ChipCreator<C> chipCreator, @NonNull Class<C> chipClass) {
+        super(context, chipCreator, chipClass);
+    }
+
+    @Override
+    public int findTokenStart(CharSequence text, int cursor) {
+        int i = cursor;
+
+        // Work backwards until we find a CHIP_CHARACTER
+        while (i > 0 && text.charAt(i - 1) != CHIP_CHARACTER) {
+            i--;
+        }
+        // Work forwards to skip over any extra whitespace at the beginning of the token
+        while (i > 0 && i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public int findTokenEnd(CharSequence text, int cursor) {
+        int i = cursor;
+        int len = text.length();
+
+        // Work forwards till we find a CHIP_CHARACTER
+        while (i < len && text.charAt(i) != CHIP_CHARACTER) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds all the unterminated tokens in {@code text} in a single pass over the text. Every segment of text between two chips (or the start or
+     * end of the text) that contains something other than whitespace is a token, starting at its first non-whitespace character.
+     *
+     * @param text the text in which to search for un-terminated tokens
+     * @return the (startIndex, endIndex) ranges of all the unterminated tokens, in the order they appear in the text
+     */
+    @NonNull
+    @Override
+    public TokenRanges findAllTokenRanges(CharSequence text) {
+        TokenRanges tokenRanges = new TokenRanges();
+        findTokens(text, tokenRanges);
+        return tokenRanges;
+    }
+
+    @Override
+    public boolean hasUnterminatedTokens(CharSequence text) {
+        return findTokens(text, null);
+    }
+
+    /**
+     * Performs the search described in {@link #findAllTokenRanges(CharSequence)}.
+     *
+     * @param text        the text in which to search for un-terminated tokens
+     * @param tokenRanges the ranges to add the tokens to, or null to stop searching at the first token found
+     * @return true if any tokens were found
+     */
+    private boolean findTokens(CharSequence text, @Nullable TokenRanges tokenRanges) {
+        boolean foundToken = false;
+        int len = text.length();
+
+        // The index of the first character in the current segment that isn't whitespace, or -1 if there is none
+        int tokenStart = -1;
+        for (int index = 0; index <= len; index++) {
+            char theCharacter = (index < len) ? text.charAt(index) : CHIP_CHARACTER;
+            if (theCharacter == CHIP_CHARACTER) {
+                if (tokenStart != -1) {
+                    if (tokenRanges == null) {
+                        return true;
+                    }
+                    tokenRanges.add(tokenStart, index);
+                    foundToken = true;
+                }
+                tokenStart = -1;
+            } else if (tokenStart == -1 && !Character.isWhitespace(theCharacter)) {
+                tokenStart = index;
+            }
+        }
+        return foundToken;
+    }
+
+    @NonNull
+    @Override
+    protected CharSequence createChipText(@NonNull C chip) {
+        return CHIP_TEXT;
+    }
+}
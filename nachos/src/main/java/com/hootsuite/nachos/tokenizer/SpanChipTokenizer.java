@@ -4,20 +4,29 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.text.Editable;
+import android.text.NoCopySpan;
+import android.text.Selection;
+import android.text.Spannable;
 import android.text.SpannableString;
+import android.text.SpannableStringBuilder;
 import android.text.Spanned;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.text.style.MetricAffectingSpan;
 import android.util.Log;
 import android.util.Pair;
 
 import com.hootsuite.nachos.ChipConfiguration;
 import com.hootsuite.nachos.chip.Chip;
 import com.hootsuite.nachos.chip.ChipCreator;
+import com.hootsuite.nachos.chip.ChipInfo;
 import com.hootsuite.nachos.chip.ChipSpan;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -66,12 +75,6 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
     @NonNull
     private Class<C> mChipClass;
 
-    private Comparator<Pair<Integer, Integer>> mReverseTokenIndexesSorter = new Comparator<Pair<Integer, Integer>>() {
-        @Override
-        public int compare(Pair<Integer, Integer> lhs, Pair<Integer, Integer> rhs) {
-            return rhs.first - lhs.first;
-        }
-    };
 
     public SpanChipTokenizer(Context context, @NonNull ChipCreator<C> chipCreator, @NonNull Class<C> chipClass) {
         mContext = context;
@@ -83,11 +86,50 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
     public void applyConfiguration(Editable text, ChipConfiguration chipConfiguration) {
         mChipConfiguration = chipConfiguration;
 
+        boolean configuredInPlace = false;
         for (C chip : findAllChips(0, text.length(), text)) {
-            // Recreate the chips with the new configuration
-            int chipStart = findChipStart(chip, text);
-            deleteChip(chip, text);
-            text.insert(chipStart, terminateToken(mChipCreator.createChip(mContext, chip)));
+            if (mChipCreator.canConfigureInPlace(chip)) {
+                mChipCreator.configureChip(chip, chipConfiguration);
+                configuredInPlace = true;
+            } else {
+                // Recreate the chips with the new configuration
+                int chipStart = findChipStart(chip, text);
+                deleteChip(chip, text);
+                text.insert(chipStart, terminateToken(mChipCreator.createChip(mContext, chip)));
+            }
+        }
+
+        if (configuredInPlace && text.length() > 0) {
+            // The text itself hasn't changed so nothing would tell the layout that the chips have changed size
+            ReflowSpan.reflow(text);
+        }
+    }
+
+    /**
+     * A span that has no effect other than causing the layout displaying the text it is attached to to reflow.
+     * <p>
+     *     A layout reflows the range of a span that affects layout whenever the span is added or removed, so briefly attaching a ReflowSpan to all
+     *     of the text reflows all of the text twice no matter how many chips it contains, rather than once for each chip. The span is never left
+     *     in the text (and wouldn't be copied along with it anyway).
+     * </p>
+     */
+    private static class ReflowSpan extends MetricAffectingSpan implements NoCopySpan {
+
+        /**
+         * Makes the layout displaying {@code text} reflow all of the text at once (rather than once for each chip).
+         */
+        static void reflow(Spannable text) {
+            ReflowSpan reflowSpan = new ReflowSpan();
+            text.setSpan(reflowSpan, 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+            text.removeSpan(reflowSpan);
+        }
+
+        @Override
+        public void updateMeasureState(TextPaint textPaint) {
+        }
+
+        @Override
+        public void updateDrawState(TextPaint textPaint) {
         }
     }
 
@@ -122,42 +164,97 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
         return len;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     The tokens are returned from last to first, so that callers can replace each token in turn without affecting the positions of the
+     *     tokens not yet replaced. Use {@link #findAllTokenRanges(CharSequence)} to get the tokens in the order they appear in the text.
+     * </p>
+     */
     @NonNull
     @Override
     public List<Pair<Integer, Integer>> findAllTokens(CharSequence text) {
-        List<Pair<Integer, Integer>> unterminatedTokens = new ArrayList<>();
+        List<Pair<Integer, Integer>> tokens = findAllTokenRanges(text).toPairs();
+        Collections.reverse(tokens);
+        return tokens;
+    }
 
-        boolean insideChip = false;
-        // Iterate backwards through the text (to avoid messing up indexes)
-        for (int index = text.length() - 1; index >= 0; index--) {
-            char theCharacter = text.charAt(index);
+    /**
+     * Finds all the unterminated tokens in {@code text} in a single pass over the text.
+     * <p>
+     *     The text is split into segments by the {@link #CHIP_SPAN_SEPARATOR}s. Chips contain exactly two separators, so working backwards from
+     *     the end of the text (which is always outside of a chip) every other segment is inside a chip. Each segment outside of a chip that
+     *     contains something other than whitespace is a token, with the same bounds as {@link #findTokenStart(CharSequence, int)} and
+     *     {@link #findTokenEnd(CharSequence, int)} would give for any cursor within it.
+     * </p>
+     *
+     * @param text the text in which to search for un-terminated tokens
+     * @return the (startIndex, endIndex) ranges of all the unterminated tokens, in the order they appear in the text
+     */
+    @NonNull
+    @Override
+    public TokenRanges findAllTokenRanges(CharSequence text) {
+        TokenRanges tokenRanges = new TokenRanges();
+        findTokens(text, tokenRanges);
+        // Tokens were found from last to first
+        tokenRanges.reverse();
+        return tokenRanges;
+    }
 
-            // Every time we hit a CHIP_SPAN_SEPARATOR character we switch from being inside to outside
-            // or outside to inside a chip
-            // This check must happen before the whitespace check because CHIP_SPAN_SEPARATOR is considered a whitespace character
-            if (theCharacter == CHIP_SPAN_SEPARATOR) {
-                insideChip = !insideChip;
-                continue;
-            }
+    @Override
+    public boolean hasUnterminatedTokens(CharSequence text) {
+        return findTokens(text, null);
+    }
 
-            // Completely skip over whitespace
-            if (Character.isWhitespace(theCharacter)) {
-                continue;
-            }
+    /**
+     * Performs the search described in {@link #findAllTokenRanges(CharSequence)}.
+     *
+     * @param text        the text in which to search for un-terminated tokens
+     * @param tokenRanges the ranges to add the tokens to (from last to first), or null to stop searching at the first token found
+     * @return true if any tokens were found
+     */
+    private boolean findTokens(CharSequence text, @Nullable TokenRanges tokenRanges) {
+        boolean foundToken = false;
+        int len = text.length();
 
-            // If we're ever outside a chip, see if the text we're in is a viable token for chipification
-            if (!insideChip) {
-                int tokenStart = findTokenStart(text, index);
-                int tokenEnd = findTokenEnd(text, index);
+        boolean insideChip = false;
+        // The index of the separator that ends the current segment (or the length of the text for the last segment)
+        int segmentEnd = len;
+        // The index of the first character in the current segment that isn't whitespace, or -1 if there is none
+        int firstNonWhitespace = -1;
+        for (int index = len - 1; index >= -1; index--) {
+            char theCharacter = (index >= 0) ? text.charAt(index) : CHIP_SPAN_SEPARATOR;
 
-                // Can only actually be chipified if there's at least one character between them
-                if (tokenEnd - tokenStart >= 1) {
-                    unterminatedTokens.add(new Pair<>(tokenStart, tokenEnd));
-                    index = tokenStart;
+            // This check must happen before the whitespace check because CHIP_SPAN_SEPARATOR is considered a whitespace character
+            if (theCharacter == CHIP_SPAN_SEPARATOR) {
+                // The segment (index, segmentEnd) is complete
+                if (!insideChip && firstNonWhitespace != -1) {
+                    int segmentStart = index + 1;
+                    // Leading whitespace is only skipped after a separator
+                    int tokenStart = (segmentStart > 0) ? firstNonWhitespace : segmentStart;
+                    // A separator is always preceded by a space which isn't part of the token
+                    int tokenEnd = (segmentEnd < len) ? segmentEnd - 1 : len;
+
+                    // Can only actually be chipified if there's at least one character between them
+                    if (tokenEnd - tokenStart >= 1) {
+                        if (tokenRanges == null) {
+                            return true;
+                        }
+                        tokenRanges.add(tokenStart, tokenEnd);
+                        foundToken = true;
+                    }
                 }
+
+                // Every time we hit a CHIP_SPAN_SEPARATOR character we switch from being inside to outside
+                // or outside to inside a chip
+                insideChip = !insideChip;
+                segmentEnd = index;
+                firstNonWhitespace = -1;
+            } else if (!Character.isWhitespace(theCharacter)) {
+                firstNonWhitespace = index;
             }
         }
-        return unterminatedTokens;
+        return foundToken;
     }
 
     @Override
@@ -168,11 +265,7 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
     }
 
     private CharSequence terminateToken(C chip) {
-        // Surround the text with CHIP_SPAN_SEPARATOR and spaces
-        // The spaces allow autocorrect to correctly identify words
-        String chipSeparator = Character.toString(CHIP_SPAN_SEPARATOR);
-        String autoCorrectSeparator = Character.toString(AUTOCORRECT_SEPARATOR);
-        CharSequence textWithSeparator = autoCorrectSeparator + chipSeparator + chip.getText() + chipSeparator + autoCorrectSeparator;
+        CharSequence textWithSeparator = createChipText(chip);
 
         // Build the container object to house the ChipSpan and space
         SpannableString spannableString = new SpannableString(textWithSeparator);
@@ -186,20 +279,150 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
         return spannableString;
     }
 
+    /**
+     * Returns the plain text that {@code chip} will span. Subclasses that represent chips differently in the text must override this along with
+     * the methods that find tokens in the text.
+     *
+     * @param chip the chip being created
+     * @return the text to attach {@code chip} to
+     */
+    @NonNull
+    protected CharSequence createChipText(@NonNull C chip) {
+        // Surround the text with CHIP_SPAN_SEPARATOR and spaces
+        // The spaces allow autocorrect to correctly identify words
+        return new StringBuilder(chip.getText().length() + 4)
+                .append(AUTOCORRECT_SEPARATOR)
+                .append(CHIP_SPAN_SEPARATOR)
+                .append(chip.getText())
+                .append(CHIP_SPAN_SEPARATOR)
+                .append(AUTOCORRECT_SEPARATOR)
+                .toString();
+    }
+
+    /**
+     * Builds the text for all of the provided chips at once. The plain text for every chip is assembled in a single pre-sized buffer and the
+     * chips are then attached to it, rather than creating and appending a separate {@link SpannableString} for each chip.
+     */
+    @NonNull
+    @Override
+    public CharSequence terminateTokens(@NonNull List<ChipInfo> chips) {
+        int capacity = 0;
+        for (ChipInfo chipInfo : chips) {
+            capacity += chipInfo.getText().length() + 4;
+        }
+
+        StringBuilder chipText = new StringBuilder(capacity);
+        List<C> createdChips = new ArrayList<>(chips.size());
+        int[] chipEnds = new int[chips.size()];
+        for (int i = 0; i < chips.size(); i++) {
+            ChipInfo chipInfo = chips.get(i);
+            C chip = mChipCreator.createChip(mContext, chipInfo.getText().toString().trim(), chipInfo.getData());
+            if (mChipConfiguration != null) {
+                mChipCreator.configureChip(chip, mChipConfiguration);
+            }
+            chipText.append(createChipText(chip));
+            createdChips.add(chip);
+            chipEnds[i] = chipText.length();
+        }
+
+        SpannableStringBuilder text = new SpannableStringBuilder(chipText);
+        int chipStart = 0;
+        for (int i = 0; i < createdChips.size(); i++) {
+            text.setSpan(createdChips.get(i), chipStart, chipEnds[i], Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            chipStart = chipEnds[i];
+        }
+        return text;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     When there is more than one token, the chipified version of the text from the start of the first token to the end of the last token is
+     *     built separately and swapped into {@code text} with a single edit, rather than editing {@code text} (and shifting everything after the
+     *     edit) once per token. The chips already in that part of the text are carried over as they are (but no other spans, so none of the
+     *     watchers attached to {@code text} see the separately built text) and the selection is kept where it would have been had each token
+     *     been replaced separately.
+     * </p>
+     */
     @Override
     public void terminateAllTokens(Editable text) {
-        List<Pair<Integer, Integer>> unterminatedTokens = findAllTokens(text);
-        // Sort in reverse order (so index changes don't affect anything)
-        Collections.sort(unterminatedTokens, mReverseTokenIndexesSorter);
-        for (Pair<Integer, Integer> indexes : unterminatedTokens) {
-            int start = indexes.first;
-            int end = indexes.second;
-            CharSequence textToChip = text.subSequence(start, end);
-            CharSequence chippedText = terminateToken(textToChip, null);
-            text.replace(start, end, chippedText);
+        TokenRanges unterminatedTokens = findAllTokenRanges(text);
+        int tokenCount = unterminatedTokens.size();
+        if (tokenCount == 0) {
+            return;
+        }
+        if (tokenCount == 1) {
+            int start = unterminatedTokens.getStart(0);
+            int end = unterminatedTokens.getEnd(0);
+            text.replace(start, end, terminateToken(TextUtils.substring(text, start, end), null));
+            return;
+        }
+
+        int regionStart = unterminatedTokens.getStart(0);
+        int regionEnd = unterminatedTokens.getEnd(tokenCount - 1);
+        SpannableStringBuilder chippedRegion = new SpannableStringBuilder();
+        int[] chipLengths = new int[tokenCount];
+        int position = regionStart;
+        for (int i = 0; i < tokenCount; i++) {
+            int start = unterminatedTokens.getStart(i);
+            int end = unterminatedTokens.getEnd(i);
+            // Carry over the text (and chips) in between the tokens
+            appendWithChips(chippedRegion, text, position, start);
+            CharSequence chippedText = terminateToken(TextUtils.substring(text, start, end), null);
+            chippedRegion.append(chippedText);
+            chipLengths[i] = chippedText.length();
+            position = end;
+        }
+
+        int selectionStart = Selection.getSelectionStart(text);
+        int selectionEnd = Selection.getSelectionEnd(text);
+
+        text.replace(regionStart, regionEnd, chippedRegion);
+
+        if (selectionStart >= 0 && selectionEnd >= 0) {
+            Selection.setSelection(text,
+                    mapOffsetThroughTermination(selectionStart, unterminatedTokens, chipLengths),
+                    mapOffsetThroughTermination(selectionEnd, unterminatedTokens, chipLengths));
+        }
+    }
+
+    /**
+     * Appends the text of {@code source} from {@code start} to {@code end} to {@code destination} along with the chips in that range. Other spans
+     * are not carried over: copying every span would also attach the watchers of the source text (such as those of the TextView displaying it)
+     * to {@code destination}, and they would then be notified of every edit to {@code destination}.
+     */
+    private void appendWithChips(SpannableStringBuilder destination, Spanned source, int start, int end) {
+        int offset = destination.length() - start;
+        destination.append(TextUtils.substring(source, start, end));
+        for (C chip : findAllChips(start, end, source)) {
+            int chipStart = findChipStart(chip, source);
+            int chipEnd = findChipEnd(chip, source);
+            if (chipStart >= start && chipEnd <= end) {
+                destination.setSpan(chip, offset + chipStart, offset + chipEnd, source.getSpanFlags(chip));
+            }
         }
     }
 
+    /**
+     * Finds where {@code offset} ends up once each of {@code tokens} has been replaced by a chip of the corresponding length in
+     * {@code chipLengths}. Offsets within a token end up after its chip, like a point span would if the token were replaced on its own.
+     */
+    private static int mapOffsetThroughTermination(int offset, TokenRanges tokens, int[] chipLengths) {
+        int shift = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int start = tokens.getStart(i);
+            int end = tokens.getEnd(i);
+            if (offset <= start) {
+                break;
+            }
+            if (offset <= end) {
+                return start + shift + chipLengths[i];
+            }
+            shift += chipLengths[i] - (end - start);
+        }
+        return offset + shift;
+    }
+
     @Override
     public int findChipStart(Chip chip, Spanned text) {
         return text.getSpanStart(chip);
@@ -210,14 +433,30 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
         return text.getSpanEnd(chip);
     }
 
+    /**
+     * Finds all the chips between {@code start} and {@code end}. If {@code text} is {@link Spannable}, an index of its chips is attached to it
+     * the first time this is called so that later lookups are binary searches instead of a walk over every span in the text.
+     * The returned chips are in the order they appear in the text.
+     */
     @SuppressWarnings("unchecked")
     @NonNull
     @Override
     public C[] findAllChips(int start, int end, Spanned text) {
+        if (text instanceof Spannable) {
+            return ChipIndex.attach((Spannable) text, mChipClass).findChips(start, end);
+        }
         C[] spansArray = text.getSpans(start, end, mChipClass);
         return (spansArray != null) ? spansArray : (C[]) Array.newInstance(mChipClass, 0);
     }
 
+    @Override
+    public int countChips(Spanned text) {
+        if (text instanceof Spannable) {
+            return ChipIndex.attach((Spannable) text, mChipClass).size();
+        }
+        return findAllChips(0, text.length(), text).length;
+    }
+
     @Override
     public void revertChipToToken(Chip chip, Editable text) {
         int chipStart = findChipStart(chip, text);
@@ -238,6 +477,43 @@ public class SpanChipTokenizer<C extends Chip> implements ChipTokenizer {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     Adjacent chips are deleted together, so each run of adjacent chips is removed with a single edit (which also removes their spans).
+     * </p>
+     */
+    @Override
+    public void deleteChips(@NonNull Collection<? extends Chip> chips, @NonNull Editable text) {
+        // Pack each chip's range into a long (start in the high bits) so the ranges can be sorted without boxing
+        long[] ranges = new long[chips.size()];
+        int rangeCount = 0;
+        for (Chip chip : chips) {
+            int chipStart = findChipStart(chip, text);
+            int chipEnd = findChipEnd(chip, text);
+            if (chipStart >= 0 && chipStart != chipEnd) {
+                ranges[rangeCount++] = ((long) chipStart << 32) | chipEnd;
+            } else {
+                // The chip's text was already deleted (see deleteChip(...))
+                text.removeSpan(chip);
+            }
+        }
+        Arrays.sort(ranges, 0, rangeCount);
+
+        // Delete the runs back to front so that the ranges of the runs still to be deleted don't move
+        int i = rangeCount - 1;
+        while (i >= 0) {
+            int runStart = (int) (ranges[i] >>> 32);
+            int runEnd = (int) ranges[i];
+            while (i > 0 && (int) ranges[i - 1] >= runStart) {
+                i--;
+                runStart = Math.min(runStart, (int) (ranges[i] >>> 32));
+            }
+            text.delete(runStart, runEnd);
+            i--;
+        }
+    }
+
     @Override
     public void deleteChipAndPadding(Chip chip, Editable text) {
         // This implementation does not add any extra padding outside of the span so we can just delete the chip normally
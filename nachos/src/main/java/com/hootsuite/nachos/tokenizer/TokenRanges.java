@@ -0,0 +1,109 @@
+package com.hootsuite.nachos.tokenizer;
+
+import androidx.annotation.NonNull;
+import android.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A list of token ranges, each of the form (startIndex, endIndex), backed by a single int array rather than a list of boxed {@link Pair}s.
+ * Ranges are in the order they were added (which, for the ranges returned by {@link ChipTokenizer#findAllTokenRanges(CharSequence)}, is
+ * the order they appear in the text).
+ */
+public final class TokenRanges {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    // Stored as [start0, end0, start1, end1, ...]
+    private int[] mRanges;
+    private int mSize;
+
+    public TokenRanges() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of ranges to allocate space for up front
+     */
+    public TokenRanges(int capacity) {
+        mRanges = new int[Math.max(1, capacity) * 2];
+    }
+
+    /**
+     * @return the number of ranges
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * @param index the index of the range
+     * @return the start of the range (inclusive)
+     */
+    public int getStart(int index) {
+        checkIndex(index);
+        return mRanges[index * 2];
+    }
+
+    /**
+     * @param index the index of the range
+     * @return the end of the range (exclusive)
+     */
+    public int getEnd(int index) {
+        checkIndex(index);
+        return mRanges[index * 2 + 1];
+    }
+
+    /**
+     * Appends a range.
+     *
+     * @param start the start of the range (inclusive)
+     * @param end   the end of the range (exclusive)
+     */
+    public void add(int start, int end) {
+        if (mSize * 2 == mRanges.length) {
+            mRanges = Arrays.copyOf(mRanges, mRanges.length * 2);
+        }
+        mRanges[mSize * 2] = start;
+        mRanges[mSize * 2 + 1] = end;
+        mSize++;
+    }
+
+    /**
+     * Reverses the order of the ranges in place.
+     */
+    void reverse() {
+        for (int i = 0, j = mSize - 1; i < j; i++, j--) {
+            int start = mRanges[i * 2];
+            int end = mRanges[i * 2 + 1];
+            mRanges[i * 2] = mRanges[j * 2];
+            mRanges[i * 2 + 1] = mRanges[j * 2 + 1];
+            mRanges[j * 2] = start;
+            mRanges[j * 2 + 1] = end;
+        }
+    }
+
+    /**
+     * @return the ranges as a list of {@link Pair}s of the form (startIndex, endIndex), in the same order
+     */
+    @NonNull
+    public List<Pair<Integer, Integer>> toPairs() {
+        List<Pair<Integer, Integer>> pairs = new ArrayList<>(mSize);
+        for (int i = 0; i < mSize; i++) {
+            pairs.add(new Pair<>(mRanges[i * 2], mRanges[i * 2 + 1]));
+        }
+        return pairs;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+}
@@ -2,12 +2,9 @@ package com.hootsuite.nachos.validator;
 
 import androidx.annotation.NonNull;
 import android.text.SpannableStringBuilder;
-import android.util.Pair;
 
 import com.hootsuite.nachos.tokenizer.ChipTokenizer;
 
-import java.util.List;
-
 /**
  * A {@link NachoValidator} that deems text to be invalid if it contains
  * unterminated tokens and fixes the text by chipifying all the unterminated tokens.
@@ -18,8 +15,7 @@ public class ChipifyingNachoValidator implements NachoValidator {
     public boolean isValid(@NonNull ChipTokenizer chipTokenizer, CharSequence text) {
 
         // The text is considered valid if there are no unterminated tokens (everything is a chip)
-        List<Pair<Integer, Integer>> unterminatedTokens = chipTokenizer.findAllTokens(text);
-        return unterminatedTokens.isEmpty();
+        return !chipTokenizer.hasUnterminatedTokens(text);
     }
 
     @Override
@@ -1,5 +1,37 @@
 package com.hootsuite.nachos.validator;
 
+/**
+ * Identifies characters that should not show up in a {@link com.hootsuite.nachos.NachoTextView NachoTextView}.
+ * <p>
+ *     The text view only calls {@link #isCodePointIllegal(int)}, whose default implementation ends up boxing each character to call
+ *     {@link #isCharacterIllegal(Character)}. Implementations that are called for a lot of text should override {@link #isCharIllegal(char)} (and
+ *     {@link #isCodePointIllegal(int)} if they handle characters outside of the Basic Multilingual Plane), or use an {@link IllegalCharacterSet}.
+ * </p>
+ */
 public interface IllegalCharacterIdentifier {
 	boolean isCharacterIllegal(Character c);
+
+	/**
+	 * Same as {@link #isCharacterIllegal(Character)} but without boxing the character.
+	 *
+	 * @param c the character to check
+	 * @return true if the character is illegal
+	 */
+	default boolean isCharIllegal(char c) {
+		return isCharacterIllegal(c);
+	}
+
+	/**
+	 * Checks a whole code point so that a surrogate pair is either kept or removed as a unit. By default a supplementary code point is illegal
+	 * if either of its surrogates is.
+	 *
+	 * @param codePoint the code point to check
+	 * @return true if the code point is illegal
+	 */
+	default boolean isCodePointIllegal(int codePoint) {
+		if (Character.isBmpCodePoint(codePoint)) {
+			return isCharIllegal((char) codePoint);
+		}
+		return isCharIllegal(Character.highSurrogate(codePoint)) || isCharIllegal(Character.lowSurrogate(codePoint));
+	}
 }
@@ -0,0 +1,181 @@
+package com.hootsuite.nachos.validator;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable {@link IllegalCharacterIdentifier} backed by a precompiled set of characters, so checking a character never boxes it nor
+ * allocates anything. Characters in the Basic Multilingual Plane are looked up in a bitset and any other code points are binary searched for in
+ * a sorted list of ranges.
+ * <p>
+ *     Create one through a {@link Builder}, either listing the illegal characters ({@link Builder#build()}) or listing the legal characters
+ *     and building the complement ({@link Builder#buildComplement()}):
+ * </p>
+ * <pre>
+ * nachoTextView.setIllegalCharacterIdentifier(new IllegalCharacterSet.Builder()
+ *         .addRange('a', 'z')
+ *         .addRange('0', '9')
+ *         .add(' ')
+ *         .buildComplement());
+ * </pre>
+ */
+public final class IllegalCharacterSet implements IllegalCharacterIdentifier {
+
+    private static final int BMP_SIZE = Character.MAX_VALUE + 1;
+
+    // Bit c is set if the BMP character c was added, only long enough to hold the highest added character
+    private final long[] mBmpBits;
+    // Sorted, non-overlapping, non-adjacent inclusive ranges of supplementary code points, stored as [start0, end0, start1, end1, ...]
+    private final int[] mSupplementaryRanges;
+    private final boolean mComplement;
+
+    private IllegalCharacterSet(long[] bmpBits, int[] supplementaryRanges, boolean complement) {
+        mBmpBits = bmpBits;
+        mSupplementaryRanges = supplementaryRanges;
+        mComplement = complement;
+    }
+
+    @Override
+    public boolean isCharacterIllegal(Character c) {
+        return isCharIllegal(c);
+    }
+
+    @Override
+    public boolean isCharIllegal(char c) {
+        return containsBmp(c) != mComplement;
+    }
+
+    @Override
+    public boolean isCodePointIllegal(int codePoint) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            return containsBmp(codePoint) != mComplement;
+        }
+        return containsSupplementary(codePoint) != mComplement;
+    }
+
+    private boolean containsBmp(int c) {
+        int word = c >>> 6;
+        return word < mBmpBits.length && (mBmpBits[word] & (1L << c)) != 0;
+    }
+
+    private boolean containsSupplementary(int codePoint) {
+        // Binary search for the last range starting at or before the code point
+        int low = 0;
+        int high = mSupplementaryRanges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (mSupplementaryRanges[mid * 2] <= codePoint) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && codePoint <= mSupplementaryRanges[high * 2 + 1];
+    }
+
+    /**
+     * Collects the characters of an {@link IllegalCharacterSet}. A Builder can be reused after building.
+     */
+    public static final class Builder {
+
+        private long[] mBmpBits = new long[0];
+        private int[] mSupplementaryRanges = new int[0];
+        private int mSupplementaryRangeCount;
+
+        /**
+         * Adds a single character.
+         */
+        @NonNull
+        public Builder add(char c) {
+            return addRange(c, c);
+        }
+
+        /**
+         * Adds every code point of {@code characters}.
+         */
+        @NonNull
+        public Builder add(@NonNull CharSequence characters) {
+            for (int i = 0; i < characters.length(); ) {
+                int codePoint = Character.codePointAt(characters, i);
+                addRange(codePoint, codePoint);
+                i += Character.charCount(codePoint);
+            }
+            return this;
+        }
+
+        /**
+         * Adds every code point from {@code firstCodePoint} to {@code lastCodePoint} (both inclusive).
+         *
+         * @throws IllegalArgumentException if the range is empty or isn't made of valid code points
+         */
+        @NonNull
+        public Builder addRange(int firstCodePoint, int lastCodePoint) {
+            if (!Character.isValidCodePoint(firstCodePoint) || !Character.isValidCodePoint(lastCodePoint) || firstCodePoint > lastCodePoint) {
+                throw new IllegalArgumentException("Invalid code point range: [" + firstCodePoint + ", " + lastCodePoint + "]");
+            }
+
+            if (firstCodePoint < BMP_SIZE) {
+                int lastBmp = Math.min(lastCodePoint, BMP_SIZE - 1);
+                int wordsNeeded = (lastBmp >>> 6) + 1;
+                if (mBmpBits.length < wordsNeeded) {
+                    mBmpBits = Arrays.copyOf(mBmpBits, wordsNeeded);
+                }
+                for (int c = firstCodePoint; c <= lastBmp; c++) {
+                    mBmpBits[c >>> 6] |= 1L << c;
+                }
+                firstCodePoint = BMP_SIZE;
+            }
+
+            if (firstCodePoint <= lastCodePoint) {
+                if (mSupplementaryRangeCount * 2 == mSupplementaryRanges.length) {
+                    mSupplementaryRanges = Arrays.copyOf(mSupplementaryRanges, Math.max(4, mSupplementaryRanges.length * 2));
+                }
+                mSupplementaryRanges[mSupplementaryRangeCount * 2] = firstCodePoint;
+                mSupplementaryRanges[mSupplementaryRangeCount * 2 + 1] = lastCodePoint;
+                mSupplementaryRangeCount++;
+            }
+            return this;
+        }
+
+        /**
+         * @return a set in which the added characters are illegal
+         */
+        @NonNull
+        public IllegalCharacterSet build() {
+            return new IllegalCharacterSet(mBmpBits.clone(), mergeSupplementaryRanges(), false);
+        }
+
+        /**
+         * @return a set in which every character that was NOT added is illegal
+         */
+        @NonNull
+        public IllegalCharacterSet buildComplement() {
+            return new IllegalCharacterSet(mBmpBits.clone(), mergeSupplementaryRanges(), true);
+        }
+
+        private int[] mergeSupplementaryRanges() {
+            // Sort the ranges by their start (packed into longs so they can be sorted without boxing)
+            long[] ranges = new long[mSupplementaryRangeCount];
+            for (int i = 0; i < mSupplementaryRangeCount; i++) {
+                ranges[i] = ((long) mSupplementaryRanges[i * 2] << 32) | mSupplementaryRanges[i * 2 + 1];
+            }
+            Arrays.sort(ranges);
+
+            int[] merged = new int[mSupplementaryRangeCount * 2];
+            int mergedCount = 0;
+            for (long range : ranges) {
+                int start = (int) (range >>> 32);
+                int end = (int) range;
+                if (mergedCount > 0 && start <= merged[mergedCount * 2 - 1] + 1) {
+                    merged[mergedCount * 2 - 1] = Math.max(merged[mergedCount * 2 - 1], end);
+                } else {
+                    merged[mergedCount * 2] = start;
+                    merged[mergedCount * 2 + 1] = end;
+                    mergedCount++;
+                }
+            }
+            return Arrays.copyOf(merged, mergedCount * 2);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hootsuite.nachos;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.hootsuite.nachos.chip.ChipIconCache;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class ChipIconCacheTest extends TestCase {
+
+    private static final int ICON_SIZE = 20;
+
+    private Context mContext;
+    private ChipIconCache mChipIconCache;
+
+    @Before
+    public void setup() {
+        mContext = RuntimeEnvironment.application.getApplicationContext();
+        mChipIconCache = new ChipIconCache(ChipIconCache.DEFAULT_MAX_SIZE_BYTES);
+    }
+
+    private Drawable createIcon(int width, int height) {
+        return new BitmapDrawable(mContext.getResources(), Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void testGetIcon_rasterizesOnce() {
+        // setup
+        Drawable icon = createIcon(100, 100);
+
+        // run
+        Bitmap first = mChipIconCache.getIcon(icon, ICON_SIZE);
+        Bitmap second = mChipIconCache.getIcon(icon, ICON_SIZE);
+
+        // verify
+        assertThat(second).isSameAs(first);
+        assertThat(mChipIconCache.missCount()).isEqualTo(1);
+        assertThat(mChipIconCache.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetIcon_scalesToFit() {
+        // setup
+        Drawable icon = createIcon(100, 50);
+
+        // run
+        Bitmap bitmap = mChipIconCache.getIcon(icon, ICON_SIZE);
+
+        // verify
+        assertThat(bitmap.getWidth()).isEqualTo(ICON_SIZE);
+        assertThat(bitmap.getHeight()).isEqualTo(ICON_SIZE / 2);
+    }
+
+    @Test
+    public void testGetIcon_keyedBySizeAndIdentity() {
+        // setup
+        Drawable icon = createIcon(100, 100);
+        Drawable otherIcon = createIcon(100, 100);
+
+        // run
+        Bitmap bitmap = mChipIconCache.getIcon(icon, ICON_SIZE);
+        Bitmap largerBitmap = mChipIconCache.getIcon(icon, ICON_SIZE * 2);
+        Bitmap otherBitmap = mChipIconCache.getIcon(otherIcon, ICON_SIZE);
+
+        // verify
+        assertThat(largerBitmap).isNotSameAs(bitmap);
+        assertThat(otherBitmap).isNotSameAs(bitmap);
+        assertThat(mChipIconCache.missCount()).isEqualTo(3);
+        assertThat(mChipIconCache.hitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testGetIcon_evictsOverBudget() {
+        // setup
+        mChipIconCache.setMaxSizeBytes(ICON_SIZE * ICON_SIZE * 4);
+        Drawable icon = createIcon(100, 100);
+        Drawable otherIcon = createIcon(100, 100);
+
+        // run
+        mChipIconCache.getIcon(icon, ICON_SIZE);
+        mChipIconCache.getIcon(otherIcon, ICON_SIZE);
+        mChipIconCache.getIcon(icon, ICON_SIZE);
+
+        // verify
+        assertThat(mChipIconCache.evictionCount()).isEqualTo(2);
+        assertThat(mChipIconCache.missCount()).isEqualTo(3);
+        assertThat(mChipIconCache.sizeBytes()).isAtMost(mChipIconCache.maxSizeBytes());
+    }
+
+    @Test
+    public void testInvalidate() {
+        // setup
+        Drawable icon = createIcon(100, 100);
+        Bitmap bitmap = mChipIconCache.getIcon(icon, ICON_SIZE);
+
+        // run
+        mChipIconCache.invalidate(icon);
+
+        // verify
+        assertThat(mChipIconCache.getIcon(icon, ICON_SIZE)).isNotSameAs(bitmap);
+        assertThat(mChipIconCache.missCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,129 @@
+package com.hootsuite.nachos;
+
+import com.hootsuite.nachos.chip.ChipInfo;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class ChipListDiffTest extends TestCase {
+
+    @Test
+    public void testDiff_unchangedChipsAreAllKept() {
+        // setup
+        List<ChipInfo> chips = chips("a", "b", "c");
+
+        // run
+        ChipListDiff diff = ChipListDiff.diff(chips, chips(" a ", "b", "c"));
+
+        // verify
+        for (int i = 0; i < chips.size(); i++) {
+            assertThat(diff.getNewIndex(i)).isEqualTo(i);
+            assertThat(diff.getOldIndex(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testDiff_onlyChangedChipsAreInsertedOrRemoved() {
+        // run
+        ChipListDiff diff = ChipListDiff.diff(chips("a", "b", "c", "d", "e"), chips("a", "x", "c", "e", "f"));
+
+        // verify
+        assertThat(diff.getNewIndex(0)).isEqualTo(0);
+        assertThat(diff.getNewIndex(1)).isEqualTo(-1);
+        assertThat(diff.getNewIndex(2)).isEqualTo(2);
+        assertThat(diff.getNewIndex(3)).isEqualTo(-1);
+        assertThat(diff.getNewIndex(4)).isEqualTo(3);
+        assertThat(diff.getOldIndex(1)).isEqualTo(-1);
+        assertThat(diff.getOldIndex(4)).isEqualTo(-1);
+        assertThat(diff.getMovedFromIndex(1)).isEqualTo(-1);
+        assertThat(diff.getMovedFromIndex(4)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testDiff_dataMustBeEqual() {
+        // setup
+        List<ChipInfo> oldChips = new ArrayList<>();
+        oldChips.add(new ChipInfo("a", 1));
+        List<ChipInfo> newChips = new ArrayList<>();
+        newChips.add(new ChipInfo("a", 2));
+
+        // run
+        ChipListDiff diff = ChipListDiff.diff(oldChips, newChips);
+
+        // verify
+        assertThat(diff.getNewIndex(0)).isEqualTo(-1);
+        assertThat(diff.getOldIndex(0)).isEqualTo(-1);
+        assertThat(diff.getMovedFromIndex(0)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testDiff_reorderedChipIsMoved() {
+        // run
+        ChipListDiff diff = ChipListDiff.diff(chips("a", "b", "c", "d"), chips("d", "a", "b", "c"));
+
+        // verify
+        assertThat(diff.getNewIndex(0)).isEqualTo(1);
+        assertThat(diff.getNewIndex(1)).isEqualTo(2);
+        assertThat(diff.getNewIndex(2)).isEqualTo(3);
+        assertThat(diff.getNewIndex(3)).isEqualTo(-1);
+        assertThat(diff.isMoved(3)).isTrue();
+        assertThat(diff.getOldIndex(0)).isEqualTo(-1);
+        assertThat(diff.getMovedFromIndex(0)).isEqualTo(3);
+    }
+
+    @Test
+    public void testDiff_largeDisjointListsGiveUp() {
+        // setup
+        List<ChipInfo> oldChips = new ArrayList<>();
+        List<ChipInfo> newChips = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            oldChips.add(new ChipInfo("old" + i, null));
+            newChips.add(new ChipInfo("new" + i, null));
+        }
+
+        // run
+        ChipListDiff diff = ChipListDiff.diff(oldChips, newChips);
+
+        // verify
+        assertThat(diff).isNull();
+    }
+
+    @Test
+    public void testDiff_largeListsWithFewChangesAreDiffed() {
+        // setup
+        List<ChipInfo> oldChips = new ArrayList<>();
+        List<ChipInfo> newChips = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            oldChips.add(new ChipInfo("chip" + i, null));
+            // Replace every twentieth chip
+            newChips.add(new ChipInfo((i % 20 == 0) ? "new" + i : "chip" + i, null));
+        }
+
+        // run
+        ChipListDiff diff = ChipListDiff.diff(oldChips, newChips);
+
+        // verify
+        assertThat(diff).isNotNull();
+        for (int i = 0; i < 5000; i++) {
+            assertThat(diff.getOldIndex(i)).isEqualTo((i % 20 == 0) ? -1 : i);
+        }
+    }
+
+    private static List<ChipInfo> chips(String... texts) {
+        List<ChipInfo> chips = new ArrayList<>(texts.length);
+        for (String text : texts) {
+            chips.add(new ChipInfo(text, null));
+        }
+        return chips;
+    }
+}
@@ -0,0 +1,97 @@
+package com.hootsuite.nachos;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+import com.hootsuite.nachos.chip.ChipMeasureCache;
+import com.hootsuite.nachos.chip.ChipSpan;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class ChipMeasureCacheTest extends TestCase {
+
+    private static final String SAMPLE_TEXT = "abcde";
+    private static final int PADDING = 10;
+    private static final String ELLIPSIS = "\u2026";
+
+    private ChipMeasureCache mChipMeasureCache;
+    private TextPaint mPaint;
+
+    @Before
+    public void setup() {
+        mChipMeasureCache = new ChipMeasureCache(ChipMeasureCache.DEFAULT_MAX_ENTRIES);
+        mPaint = new TextPaint();
+        mPaint.setTextSize(20);
+    }
+
+    @Test
+    public void testGet_keyedByAllInputs() {
+        // setup
+        mChipMeasureCache.put(SAMPLE_TEXT, mPaint, PADDING, -1, ELLIPSIS, 50, null);
+
+        // run
+        ChipMeasureCache.Measurement sameInputs = mChipMeasureCache.get(new String(SAMPLE_TEXT.toCharArray()), mPaint, PADDING, -1, ELLIPSIS);
+        ChipMeasureCache.Measurement otherPadding = mChipMeasureCache.get(SAMPLE_TEXT, mPaint, PADDING + 1, -1, ELLIPSIS);
+        ChipMeasureCache.Measurement otherMaxWidth = mChipMeasureCache.get(SAMPLE_TEXT, mPaint, PADDING, 40, ELLIPSIS);
+        ChipMeasureCache.Measurement otherEllipsis = mChipMeasureCache.get(SAMPLE_TEXT, mPaint, PADDING, -1, "...");
+        mPaint.setTextSize(30);
+        ChipMeasureCache.Measurement otherTextSize = mChipMeasureCache.get(SAMPLE_TEXT, mPaint, PADDING, -1, ELLIPSIS);
+
+        // verify
+        assertThat(sameInputs).isNotNull();
+        assertThat(sameInputs.getChipWidth()).isEqualTo(50);
+        assertThat(sameInputs.getEllipsizedText()).isNull();
+        assertThat(otherPadding).isNull();
+        assertThat(otherMaxWidth).isNull();
+        assertThat(otherEllipsis).isNull();
+        assertThat(otherTextSize).isNull();
+        assertThat(mChipMeasureCache.hitCount()).isEqualTo(1);
+        assertThat(mChipMeasureCache.missCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testPut_evictsOverCapacity() {
+        // setup
+        mChipMeasureCache.setMaxEntries(1);
+
+        // run
+        mChipMeasureCache.put(SAMPLE_TEXT, mPaint, PADDING, -1, ELLIPSIS, 50, null);
+        mChipMeasureCache.put("fghij", mPaint, PADDING, -1, ELLIPSIS, 50, null);
+
+        // verify
+        assertThat(mChipMeasureCache.evictionCount()).isEqualTo(1);
+        assertThat(mChipMeasureCache.size()).isEqualTo(1);
+        assertThat(mChipMeasureCache.get(SAMPLE_TEXT, mPaint, PADDING, -1, ELLIPSIS)).isNull();
+    }
+
+    @Test
+    public void testGetSize_reusesMeasurementOfEquivalentChip() {
+        // setup
+        Context context = RuntimeEnvironment.application.getApplicationContext();
+        ChipMeasureCache.getDefault().clear();
+        ChipSpan first = new ChipSpan(context, SAMPLE_TEXT, null, null);
+        ChipSpan second = new ChipSpan(context, SAMPLE_TEXT, null, null);
+        first.setMaxAvailableWidth(30);
+        second.setMaxAvailableWidth(30);
+        int firstWidth = first.getSize(new TextPaint(), SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+        int hitCountBefore = ChipMeasureCache.getDefault().hitCount();
+
+        // run
+        int secondWidth = second.getSize(new TextPaint(), SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+
+        // verify
+        assertThat(secondWidth).isEqualTo(firstWidth);
+        assertThat(ChipMeasureCache.getDefault().hitCount()).isEqualTo(hitCountBefore + 1);
+    }
+}
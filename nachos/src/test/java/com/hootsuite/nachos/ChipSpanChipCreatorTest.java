@@ -4,6 +4,7 @@ import android.content.Context;
 
 import com.hootsuite.nachos.chip.ChipSpan;
 import com.hootsuite.nachos.chip.ChipSpanChipCreator;
+import com.hootsuite.nachos.chip.ChipStyle;
 
 import junit.framework.TestCase;
 
@@ -81,4 +82,16 @@ public class ChipSpanChipCreatorTest extends TestCase {
         assertThat(chipSpan.getDrawable()).isNull();
         assertThat(chipSpan.getData()).isSameAs(data);
     }
+
+    @Test
+    public void testGetChipStyle_sharedBetweenCalls() {
+        // run
+        ChipStyle first = mChipSpanChipCreator.getChipStyle(mContext);
+        ChipStyle second = mChipSpanChipCreator.getChipStyle(mContext);
+
+        // verify
+        assertThat(first).isNotNull();
+        assertThat(second).isSameAs(first);
+        assertThat(first.isValidFor(mContext)).isTrue();
+    }
 }
@@ -0,0 +1,216 @@
+package com.hootsuite.nachos;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.text.TextPaint;
+
+import com.hootsuite.nachos.chip.ChipSpan;
+import com.hootsuite.nachos.chip.ChipStyle;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class ChipSpanTest extends TestCase {
+
+    private static final String SAMPLE_TEXT = "abcde";
+    private static final int GRINNING_FACE = 0x1F600;
+    private static final int DRAW_COUNT = 1000;
+    // Allows for a little noise from the measurement itself; allocating even one object per draw would exceed this
+    private static final long MAX_ALLOCATED_BYTES = 1024;
+
+    private Context mContext;
+
+    @Before
+    public void setup() {
+        mContext = RuntimeEnvironment.application.getApplicationContext();
+    }
+
+    @Test
+    public void testDraw_doesNotAllocate() {
+        // setup
+        ChipSpan chipSpan = new ChipSpan(mContext, SAMPLE_TEXT, null, null);
+        chipSpan.setChipHeight(40);
+        chipSpan.getSize(new TextPaint(), SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+        // Use a canvas and paint that do nothing so that only the allocations made by the ChipSpan itself are counted
+        Canvas canvas = new NoOpCanvas();
+        Paint paint = new NoOpPaint();
+        for (int i = 0; i < DRAW_COUNT; i++) {
+            chipSpan.draw(canvas, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), 0, 0, 30, 40, paint);
+        }
+
+        // run
+        long allocatedBefore = getAllocatedBytes();
+        for (int i = 0; i < DRAW_COUNT; i++) {
+            chipSpan.draw(canvas, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), 0, 0, 30, 40, paint);
+        }
+        long allocatedBytes = getAllocatedBytes() - allocatedBefore;
+
+        // verify
+        assertThat(allocatedBytes).isLessThan(MAX_ALLOCATED_BYTES);
+    }
+
+    @Test
+    public void testGetSize_ellipsizesToFit() {
+        // setup
+        ChipSpan chipSpan = new ChipSpan(mContext, SAMPLE_TEXT, null, null);
+        TextPaint paint = new TextPaint();
+        int fullWidth = chipSpan.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+
+        // run
+        chipSpan.setMaxAvailableWidth(fullWidth / 2);
+        int ellipsizedWidth = chipSpan.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+        chipSpan.setMaxAvailableWidth(fullWidth);
+        int restoredWidth = chipSpan.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+
+        // verify
+        assertThat(ellipsizedWidth).isEqualTo(fullWidth / 2);
+        assertThat(restoredWidth).isEqualTo(fullWidth);
+    }
+
+    @Test
+    public void testGetSize_ellipsizesLongText() {
+        // setup
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            longText.append(SAMPLE_TEXT);
+        }
+        ChipSpan chipSpan = new ChipSpan(mContext, longText, null, null);
+        chipSpan.setMaxAvailableWidth(100);
+        TextPaint paint = new TextPaint();
+        String ellipsis = new ChipStyle(mContext).getEllipsis();
+        int nonTextWidth = getNonTextWidth(longText.toString(), paint);
+
+        // run
+        int width = chipSpan.getSize(paint, longText, 0, longText.length(), new Paint.FontMetricsInt());
+        String drawnText = getDrawnText(chipSpan, paint);
+
+        // verify
+        assertThat(width).isEqualTo(100);
+        assertThat(chipSpan.getText().toString()).isEqualTo(longText.toString());
+        assertThat(drawnText).endsWith(ellipsis);
+        int prefixLength = drawnText.length() - ellipsis.length();
+        assertThat(longText.toString()).startsWith(drawnText.substring(0, prefixLength));
+        // The ellipsized text fits but wouldn't with one more character of the text
+        assertThat(nonTextWidth + getTextWidth(drawnText, paint)).isLessThanOrEqualTo(100);
+        String longerText = longText.substring(0, prefixLength + 1) + ellipsis;
+        assertThat(nonTextWidth + getTextWidth(longerText, paint)).isGreaterThan(100);
+    }
+
+    @Test
+    public void testGetSize_ellipsizingDoesNotSplitSurrogatePairs() {
+        // setup
+        StringBuilder emojiText = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            emojiText.appendCodePoint(GRINNING_FACE);
+        }
+        TextPaint paint = new TextPaint();
+        String ellipsis = new ChipStyle(mContext).getEllipsis();
+        int nonTextWidth = getNonTextWidth(emojiText.toString(), paint);
+
+        int minWidth = nonTextWidth + getTextWidth(ellipsis, paint);
+
+        // Try enough widths that the longest fitting prefix lands in the middle of a surrogate pair for some of them
+        for (int maxWidth = minWidth; maxWidth < minWidth + 40; maxWidth++) {
+            ChipSpan chipSpan = new ChipSpan(mContext, emojiText, null, null);
+            chipSpan.setMaxAvailableWidth(maxWidth);
+
+            // run
+            chipSpan.getSize(paint, emojiText, 0, emojiText.length(), new Paint.FontMetricsInt());
+            String drawnText = getDrawnText(chipSpan, paint);
+
+            // verify
+            assertThat(drawnText).endsWith(ellipsis);
+            int prefixLength = drawnText.length() - ellipsis.length();
+            assertThat(prefixLength % 2).isEqualTo(0);
+            assertThat(emojiText.toString()).startsWith(drawnText.substring(0, prefixLength));
+            assertThat(nonTextWidth + getTextWidth(drawnText, paint)).isLessThanOrEqualTo(maxWidth);
+        }
+    }
+
+    /**
+     * @return the width of a chip showing {@code text} (with no maximum width) that isn't taken up by the text itself
+     */
+    private int getNonTextWidth(String text, TextPaint paint) {
+        ChipSpan chipSpan = new ChipSpan(mContext, text, null, null);
+        int fullWidth = chipSpan.getSize(paint, text, 0, text.length(), new Paint.FontMetricsInt());
+        return fullWidth - getTextWidth(text, paint);
+    }
+
+    private static int getTextWidth(String text, TextPaint paint) {
+        Rect bounds = new Rect();
+        paint.getTextBounds(text, 0, text.length(), bounds);
+        return bounds.width();
+    }
+
+    private static String getDrawnText(ChipSpan chipSpan, TextPaint paint) {
+        RecordingCanvas canvas = new RecordingCanvas();
+        chipSpan.setChipHeight(40);
+        chipSpan.draw(canvas, "", 0, 0, 0, 0, 30, 40, paint);
+        return canvas.mDrawnText;
+    }
+
+    private static long getAllocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class NoOpCanvas extends Canvas {
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        }
+    }
+
+    private static class RecordingCanvas extends NoOpCanvas {
+
+        private String mDrawnText;
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+            mDrawnText = text.substring(start, end);
+        }
+    }
+
+    private static class NoOpPaint extends Paint {
+
+        @Override
+        public void setColor(int color) {
+        }
+
+        @Override
+        public void setTextSize(float textSize) {
+        }
+
+        @Override
+        public float getFontMetrics(FontMetrics metrics) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.hootsuite.nachos;
+
+import android.content.Context;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+import com.hootsuite.nachos.chip.Chip;
+import com.hootsuite.nachos.chip.ChipCreator;
+import com.hootsuite.nachos.chip.ChipInfo;
+import com.hootsuite.nachos.tokenizer.CompactChipTokenizer;
+import com.hootsuite.nachos.tokenizer.TokenRanges;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class CompactChipTokenizerTest extends TestCase {
+
+    private static final String CHIP = Character.toString(CompactChipTokenizer.CHIP_CHARACTER);
+
+    private CompactChipTokenizer<Chip> mCompactChipTokenizer;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setup() {
+        ChipCreator<Chip> mockChipCreator = (ChipCreator<Chip>) mock(ChipCreator.class);
+        doAnswer(new Answer<Chip>() {
+            @Override
+            public Chip answer(InvocationOnMock invocation) throws Throwable {
+                Chip mockChip = mock(Chip.class);
+                CharSequence text = (String) invocation.getArguments()[1];
+                when(mockChip.getText()).thenReturn(text);
+                when(mockChip.getData()).thenReturn(invocation.getArguments()[2]);
+                return mockChip;
+            }
+        }).when(mockChipCreator).createChip(any(Context.class), any(CharSequence.class), any());
+
+        mCompactChipTokenizer = new CompactChipTokenizer<>(RuntimeEnvironment.application.getApplicationContext(), mockChipCreator, Chip.class);
+    }
+
+    @Test
+    public void testTerminateToken_chipIsOneCharacter() {
+        // run
+        CharSequence chipText = mCompactChipTokenizer.terminateToken("  test  ", null);
+
+        // verify
+        assertThat(chipText.toString()).isEqualTo(CHIP);
+        Chip[] chips = ((Spanned) chipText).getSpans(0, chipText.length(), Chip.class);
+        assertThat(chips).hasSize(1);
+        assertThat(chips[0].getText().toString()).isEqualTo("test");
+    }
+
+    @Test
+    public void testTerminateTokens_oneCharacterPerChip() {
+        // run
+        CharSequence text = mCompactChipTokenizer.terminateTokens(Arrays.asList(new ChipInfo("a", null), new ChipInfo("bcd", null)));
+
+        // verify
+        assertThat(text.toString()).isEqualTo(CHIP + CHIP);
+        Chip[] chips = mCompactChipTokenizer.findAllChips(0, text.length(), (Spanned) text);
+        assertThat(chips).hasSize(2);
+        assertThat(chips[0].getText().toString()).isEqualTo("a");
+        assertThat(chips[1].getText().toString()).isEqualTo("bcd");
+    }
+
+    @Test
+    public void testFindAllTokenRanges_tokensBetweenChips() {
+        // setup
+        String text = "one" + CHIP + "  two three " + CHIP + "   " + CHIP + CHIP + " four";
+
+        // run
+        TokenRanges tokenRanges = mCompactChipTokenizer.findAllTokenRanges(text);
+
+        // verify
+        assertThat(tokenRanges.size()).isEqualTo(3);
+        assertThat(text.substring(tokenRanges.getStart(0), tokenRanges.getEnd(0))).isEqualTo("one");
+        assertThat(text.substring(tokenRanges.getStart(1), tokenRanges.getEnd(1))).isEqualTo("two three ");
+        assertThat(text.substring(tokenRanges.getStart(2), tokenRanges.getEnd(2))).isEqualTo("four");
+        assertThat(mCompactChipTokenizer.hasUnterminatedTokens(CHIP + "  " + CHIP)).isFalse();
+        for (int i = 0; i < tokenRanges.size(); i++) {
+            assertThat(mCompactChipTokenizer.findTokenStart(text, tokenRanges.getEnd(i))).isEqualTo(tokenRanges.getStart(i));
+            assertThat(mCompactChipTokenizer.findTokenEnd(text, tokenRanges.getStart(i))).isEqualTo(tokenRanges.getEnd(i));
+        }
+    }
+
+    @Test
+    public void testFindTokenStart_cursorRightAfterChip() {
+        // setup
+        String text = CHIP + "  abc";
+
+        // run
+        int tokenStart = mCompactChipTokenizer.findTokenStart(text, 1);
+
+        // verify
+        // Like SpanChipTokenizer, the whitespace after a chip is skipped even past the cursor
+        assertThat(tokenStart).isEqualTo(3);
+        assertThat(mCompactChipTokenizer.findTokenStart("  abc", 0)).isEqualTo(0);
+    }
+
+    @Test
+    public void testTerminateAllTokens_thenRevertChipToToken() {
+        // setup
+        Editable text = new SpannableStringBuilder("one two" + CHIP + " three");
+        text.setSpan(mock(Chip.class), 7, 8, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        // run
+        mCompactChipTokenizer.terminateAllTokens(text);
+
+        // verify
+        assertThat(text.toString()).isEqualTo(CHIP + CHIP + CHIP);
+        Chip[] chips = mCompactChipTokenizer.findAllChips(0, text.length(), text);
+        assertThat(chips).hasSize(3);
+        assertThat(chips[2].getText().toString()).isEqualTo("three");
+
+        // run
+        mCompactChipTokenizer.revertChipToToken(chips[0], text);
+
+        // verify
+        assertThat(text.toString()).isEqualTo("one two" + CHIP + CHIP);
+        assertThat(mCompactChipTokenizer.countChips(text)).isEqualTo(2);
+    }
+}
@@ -2,7 +2,12 @@ package com.hootsuite.nachos;
 
 import android.text.Editable;
 import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.TextWatcher;
 
+import com.hootsuite.nachos.chip.Chip;
+import com.hootsuite.nachos.chip.ChipSpan;
+import com.hootsuite.nachos.chip.ChipSpanChipCreator;
 import com.hootsuite.nachos.terminator.ChipTerminatorHandler;
 import com.hootsuite.nachos.terminator.DefaultChipTerminatorHandler;
 import com.hootsuite.nachos.tokenizer.ChipTokenizer;
@@ -18,8 +23,12 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static com.hootsuite.nachos.matchers.CharSequenceMatchers.toStringEq;
 import static com.hootsuite.nachos.matchers.IntegerMatchers.between;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -345,6 +354,128 @@ public class DefaultChipTerminatorHandlerTest extends TestCase {
         assertThat(testText.toString()).contains(Character.toString(SpanChipTokenizer.CHIP_SPAN_SEPARATOR));
     }
 
+    @Test
+    public void testFindAndHandleChipTerminators_pasteEventMatchesTyping() {
+        // setup
+        setupTerminators();
+        mDefaultChipTerminatorHandler.setPasteBehavior(ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        ChipTokenizer chipTokenizer = new SpanChipTokenizer<>(RuntimeEnvironment.application, new ChipSpanChipCreator(), ChipSpan.class);
+
+        SpannableStringBuilder prefix = new SpannableStringBuilder(SINGLE_TOKEN);
+        prefix.append(chipTokenizer.terminateToken("chip", null));
+        CharSequence pasted = SINGLE_TOKEN_2 + " " + SINGLE_TOKEN_3 + "  " + SINGLE_TOKEN + " ";
+
+        SpannableStringBuilder pastedText = new SpannableStringBuilder(prefix).append(pasted).append(SINGLE_TOKEN_2);
+        SpannableStringBuilder typedText = new SpannableStringBuilder(prefix).append(pasted).append(SINGLE_TOKEN_2);
+
+        // run
+        int pastedSelection = mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, pastedText, prefix.length(),
+                prefix.length() + pasted.length(), true);
+        int typedSelection = mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, typedText, prefix.length(),
+                prefix.length() + pasted.length(), false);
+
+        // verify
+        assertThat(pastedSelection).isEqualTo(typedSelection);
+        assertThat(pastedText.toString()).isEqualTo(typedText.toString());
+        assertThat(chipTokenizer.findAllChips(0, pastedText.length(), pastedText)).hasSize(4);
+    }
+
+    @Test
+    public void testFindAndHandleChipTerminators_pasteEventEditsTextOnce() {
+        // setup
+        setupTerminators();
+        mDefaultChipTerminatorHandler.setPasteBehavior(ChipTerminatorHandler.PASTE_BEHAVIOR_USE_DEFAULT);
+        ChipTokenizer chipTokenizer = new SpanChipTokenizer<>(RuntimeEnvironment.application, new ChipSpanChipCreator(), ChipSpan.class);
+
+        SpannableStringBuilder prefix = new SpannableStringBuilder(chipTokenizer.terminateToken("chip", null));
+        StringBuilder pasted = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            pasted.append(SINGLE_TOKEN).append(i).append((i % 2 == 0) ? CHIPIFY_TO_TERMINATOR_CHAR : CHIPIFY_CURRENT_TOKEN_CHAR);
+        }
+
+        SpannableStringBuilder pastedText = new SpannableStringBuilder(prefix).append(pasted).append(SINGLE_TOKEN_2);
+        SpannableStringBuilder typedText = new SpannableStringBuilder(prefix).append(pasted).append(SINGLE_TOKEN_2);
+        final int[] textChangedCount = new int[1];
+        pastedText.setSpan(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                textChangedCount[0]++;
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        }, 0, pastedText.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        // run
+        int pastedSelection = mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, pastedText, prefix.length(),
+                prefix.length() + pasted.length(), true);
+        int typedSelection = mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, typedText, prefix.length(),
+                prefix.length() + pasted.length(), false);
+
+        // verify
+        assertThat(textChangedCount[0]).isEqualTo(1);
+        assertThat(pastedSelection).isEqualTo(typedSelection);
+        assertThat(pastedText.toString()).isEqualTo(typedText.toString());
+        Chip[] pastedChips = chipTokenizer.findAllChips(0, pastedText.length(), pastedText);
+        Chip[] typedChips = chipTokenizer.findAllChips(0, typedText.length(), typedText);
+        assertThat(pastedChips).hasSize(101);
+        for (int i = 0; i < pastedChips.length; i++) {
+            assertThat(pastedChips[i].getText().toString()).isEqualTo(typedChips[i].getText().toString());
+            assertThat(chipTokenizer.findChipStart(pastedChips[i], pastedText)).isEqualTo(chipTokenizer.findChipStart(typedChips[i], typedText));
+        }
+    }
+
+    @Test
+    public void testFindAndHandleChipTerminators_pasteEventChipifyAllMatchesTyping() {
+        // setup
+        setupTerminators();
+        mDefaultChipTerminatorHandler.setPasteBehavior(ChipTerminatorHandler.PASTE_BEHAVIOR_USE_DEFAULT);
+        ChipTokenizer chipTokenizer = new SpanChipTokenizer<>(RuntimeEnvironment.application, new ChipSpanChipCreator(), ChipSpan.class);
+
+        SpannableStringBuilder prefix = new SpannableStringBuilder(SINGLE_TOKEN);
+        prefix.append(chipTokenizer.terminateToken("chip", null));
+        CharSequence pasted = SINGLE_TOKEN_2 + " " + SINGLE_TOKEN_3 + CHIPIFY_ALL_CHAR + SINGLE_TOKEN + " ";
+
+        SpannableStringBuilder pastedText = new SpannableStringBuilder(prefix).append(pasted);
+        SpannableStringBuilder typedText = new SpannableStringBuilder(prefix).append(pasted);
+
+        // run
+        int pastedSelection = mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, pastedText, prefix.length(),
+                prefix.length() + pasted.length(), true);
+        int typedSelection = mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, typedText, prefix.length(),
+                prefix.length() + pasted.length(), false);
+
+        // verify
+        assertThat(pastedSelection).isEqualTo(typedSelection);
+        assertThat(pastedText.toString()).isEqualTo(typedText.toString());
+        assertThat(chipTokenizer.findAllChips(0, pastedText.length(), pastedText))
+                .hasSameSizeAs(chipTokenizer.findAllChips(0, typedText.length(), typedText));
+    }
+
+    @Test
+    public void testFindAndHandleChipTerminators_nonAsciiTerminators() {
+        // setup
+        Map<Character, Integer> chipTerminators = new HashMap<>();
+        chipTerminators.put('\u3001', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        chipTerminators.put('\uff1b', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        mDefaultChipTerminatorHandler.setChipTerminators(chipTerminators);
+        ChipTokenizer chipTokenizer = new SpanChipTokenizer<>(RuntimeEnvironment.application, new ChipSpanChipCreator(), ChipSpan.class);
+
+        SpannableStringBuilder testText = new SpannableStringBuilder(SINGLE_TOKEN + "\u3001" + SINGLE_TOKEN_2 + "\uff1b" + SINGLE_TOKEN_3 + ",");
+
+        // run
+        mDefaultChipTerminatorHandler.findAndHandleChipTerminators(chipTokenizer, testText, 0, testText.length(), false);
+
+        // verify
+        assertThat(chipTokenizer.findAllChips(0, testText.length(), testText)).hasSize(2);
+        assertThat(testText.toString()).endsWith(SINGLE_TOKEN_3 + ",");
+    }
+
     private static SpannableStringBuilder createTestPasteText() {
         SpannableStringBuilder testText = new SpannableStringBuilder();
         testText.append(CHIPIFY_ALL_CHAR);
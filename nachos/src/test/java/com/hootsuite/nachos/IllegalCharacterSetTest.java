@@ -0,0 +1,106 @@
+package com.hootsuite.nachos;
+
+import com.hootsuite.nachos.validator.IllegalCharacterIdentifier;
+import com.hootsuite.nachos.validator.IllegalCharacterSet;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class IllegalCharacterSetTest extends TestCase {
+
+    private static final int GRINNING_FACE = 0x1F600;
+    private static final int SMILING_FACE = 0x1F60A;
+
+    @Test
+    public void testBuild_addedCharactersAreIllegal() {
+        // run
+        IllegalCharacterSet illegalCharacterSet = new IllegalCharacterSet.Builder()
+                .add(',')
+                .add("\u00E9\u4E2D")
+                .build();
+
+        // verify
+        assertThat(illegalCharacterSet.isCharIllegal(',')).isTrue();
+        assertThat(illegalCharacterSet.isCharIllegal('\u00E9')).isTrue();
+        assertThat(illegalCharacterSet.isCharIllegal('\u4E2D')).isTrue();
+        assertThat(illegalCharacterSet.isCharacterIllegal(',')).isTrue();
+        assertThat(illegalCharacterSet.isCharIllegal('a')).isFalse();
+        assertThat(illegalCharacterSet.isCharIllegal('\uFFFF')).isFalse();
+        assertThat(illegalCharacterSet.isCodePointIllegal(GRINNING_FACE)).isFalse();
+    }
+
+    @Test
+    public void testBuildComplement_addedCharactersAreLegal() {
+        // run
+        IllegalCharacterSet illegalCharacterSet = new IllegalCharacterSet.Builder()
+                .addRange('a', 'z')
+                .addRange('0', '9')
+                .add(' ')
+                .buildComplement();
+
+        // verify
+        assertThat(illegalCharacterSet.isCharIllegal('a')).isFalse();
+        assertThat(illegalCharacterSet.isCharIllegal('z')).isFalse();
+        assertThat(illegalCharacterSet.isCharIllegal('5')).isFalse();
+        assertThat(illegalCharacterSet.isCharIllegal(' ')).isFalse();
+        assertThat(illegalCharacterSet.isCharIllegal('A')).isTrue();
+        assertThat(illegalCharacterSet.isCharIllegal(',')).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(GRINNING_FACE)).isTrue();
+    }
+
+    @Test
+    public void testAddRange_supplementaryCodePoints() {
+        // run
+        IllegalCharacterSet illegalCharacterSet = new IllegalCharacterSet.Builder()
+                .addRange(SMILING_FACE, SMILING_FACE + 5)
+                .addRange(GRINNING_FACE, GRINNING_FACE + 2)
+                .add(new String(Character.toChars(GRINNING_FACE + 3)))
+                .build();
+
+        // verify
+        assertThat(illegalCharacterSet.isCodePointIllegal(GRINNING_FACE)).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(GRINNING_FACE + 3)).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(GRINNING_FACE + 4)).isFalse();
+        assertThat(illegalCharacterSet.isCodePointIllegal(SMILING_FACE + 5)).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(SMILING_FACE + 6)).isFalse();
+        assertThat(illegalCharacterSet.isCodePointIllegal(GRINNING_FACE - 1)).isFalse();
+    }
+
+    @Test
+    public void testAddRange_spanningBothPlanes() {
+        // run
+        IllegalCharacterSet illegalCharacterSet = new IllegalCharacterSet.Builder()
+                .addRange(0xFFF0, 0x10010)
+                .build();
+
+        // verify
+        assertThat(illegalCharacterSet.isCharIllegal('\uFFF0')).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(0x10000)).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(0x10010)).isTrue();
+        assertThat(illegalCharacterSet.isCodePointIllegal(0x10011)).isFalse();
+        assertThat(illegalCharacterSet.isCharIllegal('\uFFEF')).isFalse();
+    }
+
+    @Test
+    public void testIsCodePointIllegal_defaultChecksSurrogates() {
+        // setup
+        IllegalCharacterIdentifier identifier = new IllegalCharacterIdentifier() {
+            @Override
+            public boolean isCharacterIllegal(Character c) {
+                return c == Character.highSurrogate(GRINNING_FACE);
+            }
+        };
+
+        // verify
+        assertThat(identifier.isCodePointIllegal(GRINNING_FACE)).isTrue();
+        assertThat(identifier.isCodePointIllegal(0x10000)).isFalse();
+        assertThat(identifier.isCodePointIllegal('a')).isFalse();
+    }
+}
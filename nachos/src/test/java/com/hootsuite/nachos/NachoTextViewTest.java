@@ -0,0 +1,639 @@
+package com.hootsuite.nachos;
+
+import android.app.Activity;
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.text.Editable;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+
+import androidx.annotation.NonNull;
+
+import com.hootsuite.nachos.chip.Chip;
+import com.hootsuite.nachos.chip.ChipInfo;
+import com.hootsuite.nachos.chip.ChipSpan;
+import com.hootsuite.nachos.chip.ChipSpanChipCreator;
+import com.hootsuite.nachos.terminator.ChipTerminatorHandler;
+import com.hootsuite.nachos.tokenizer.ChipTokenizer;
+import com.hootsuite.nachos.tokenizer.SpanChipTokenizer;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class NachoTextViewTest extends TestCase {
+
+    private NachoTextView mNachoTextView;
+
+    @Before
+    public void setup() {
+        mNachoTextView = new NachoTextView(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testUpdateTextWithChips_chipMovedForwardIsKept() {
+        // setup
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+        List<Chip> oldChips = mNachoTextView.getAllChips();
+        int tokenSelection = typeToken("tok");
+
+        // run
+        mNachoTextView.updateTextWithChips(chips("b", "c", "a"));
+
+        // verify
+        List<Chip> newChips = mNachoTextView.getAllChips();
+        assertThat(mNachoTextView.getChipValues()).containsExactly("b", "c", "a");
+        assertThat(newChips.get(0)).isSameAs(oldChips.get(1));
+        assertThat(newChips.get(1)).isSameAs(oldChips.get(2));
+        assertThat(newChips.get(2)).isSameAs(oldChips.get(0));
+        assertTokenAndSelectionKept(tokenSelection);
+    }
+
+    @Test
+    public void testUpdateTextWithChips_chipMovedBackwardIsKept() {
+        // setup
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+        List<Chip> oldChips = mNachoTextView.getAllChips();
+        int tokenSelection = typeToken("tok");
+
+        // run
+        mNachoTextView.updateTextWithChips(chips("c", "a", "b"));
+
+        // verify
+        List<Chip> newChips = mNachoTextView.getAllChips();
+        assertThat(mNachoTextView.getChipValues()).containsExactly("c", "a", "b");
+        assertThat(newChips.get(0)).isSameAs(oldChips.get(2));
+        assertThat(newChips.get(1)).isSameAs(oldChips.get(0));
+        assertThat(newChips.get(2)).isSameAs(oldChips.get(1));
+        assertTokenAndSelectionKept(tokenSelection);
+    }
+
+    @Test
+    public void testUpdateTextWithChips_hiddenChipChangesOnlyUpdateCollapsedChips() {
+        // setup
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+        Chip visibleChip = mNachoTextView.getAllChips().get(0);
+
+        // run
+        mNachoTextView.updateTextWithChips(chips("a", "b", "d", "e"));
+
+        // verify
+        assertThat(mNachoTextView.getAllChips()).containsExactly(visibleChip);
+        assertThat(getCollapsedChipTexts()).containsExactly("b", "d", "e");
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "d", "e");
+    }
+
+    @Test
+    public void testUpdateTextWithChips_removedVisibleChipIsReplacedByHiddenChip() {
+        // setup
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+
+        // run
+        mNachoTextView.updateTextWithChips(chips("b", "c"));
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("b", "c");
+        assertThat(mNachoTextView.getAllChips()).hasSize(1);
+        assertThat(getCollapsedChipTexts()).containsExactly("c");
+    }
+
+    @Test
+    public void testUpdateTextWithChips_summaryChipIsRemovedWhenNoChipsAreHidden() {
+        // setup
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b"));
+
+        // run
+        mNachoTextView.updateTextWithChips(chips("a"));
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a");
+        assertThat(mNachoTextView.getCollapsedChips()).isEmpty();
+        assertThat(mNachoTextView.getChipAndTokenValues()).containsExactly("a");
+    }
+
+    @Test
+    public void testAsyncChipification_resultIsCommittedOnTheMainThread() {
+        // setup
+        List<Runnable> tasks = new ArrayList<>();
+        mNachoTextView.enableAsyncChipification(queuingExecutor(tasks), 1);
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attachAndFocus();
+        paste("a,b,c,");
+        assertThat(mNachoTextView.getText().toString()).isEqualTo("a,b,c,");
+
+        // run
+        runTasks(tasks);
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "c");
+        assertThat(mNachoTextView.getTokenValues()).isEmpty();
+        assertThat(mNachoTextView.getSelectionEnd()).isEqualTo(mNachoTextView.getText().length());
+    }
+
+    @Test
+    public void testAsyncChipification_onlyTheChangedTextIsReplaced() {
+        // setup
+        List<Runnable> tasks = new ArrayList<>();
+        mNachoTextView.enableAsyncChipification(queuingExecutor(tasks), 1);
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attachAndFocus();
+        mNachoTextView.setTextWithChips(chips("existing"));
+        Chip existingChip = mNachoTextView.getAllChips().get(0);
+        paste("a,b,");
+
+        // run
+        runTasks(tasks);
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("existing", "a", "b");
+        assertThat(mNachoTextView.getAllChips().get(0)).isSameAs(existingChip);
+    }
+
+    @Test
+    public void testAsyncChipification_resultIsDroppedIfTheTextChanges() {
+        // setup
+        List<Runnable> tasks = new ArrayList<>();
+        mNachoTextView.enableAsyncChipification(queuingExecutor(tasks), 1);
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attachAndFocus();
+        paste("a,b,");
+
+        // run
+        mNachoTextView.getText().append("c");
+        runTasks(tasks);
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).isEmpty();
+        assertThat(mNachoTextView.getText().toString()).isEqualTo("a,b,c");
+    }
+
+    @Test
+    public void testAsyncChipification_resultIsDroppedIfTheTextChangesBeforeItIsPosted() {
+        // setup
+        List<Runnable> tasks = new ArrayList<>();
+        mNachoTextView.enableAsyncChipification(queuingExecutor(tasks), 1);
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attachAndFocus();
+        paste("a,b,");
+        for (Runnable task : tasks) {
+            task.run();
+        }
+
+        // run
+        mNachoTextView.getText().append("c");
+        shadowOf(Looper.getMainLooper()).idle();
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).isEmpty();
+        assertThat(mNachoTextView.getText().toString()).isEqualTo("a,b,c");
+    }
+
+    @Test
+    public void testAsyncChipification_shutDownExecutorHandlesPasteSynchronously() {
+        // setup
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        mNachoTextView.enableAsyncChipification(executor, 1);
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attachAndFocus();
+
+        // run
+        paste("a,b,");
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b");
+    }
+
+    @Test
+    public void testEnableChipCollapsing_collapsesChipsBehindSummaryChip() {
+        // setup
+        mNachoTextView.setTextWithChips(chips("a", "b", "c", "d", "e"));
+
+        // run
+        mNachoTextView.enableChipCollapsing(2);
+
+        // verify
+        assertThat(mNachoTextView.getAllChips()).hasSize(2);
+        assertThat(getCollapsedChipTexts()).containsExactly("c", "d", "e");
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "c", "d", "e");
+        assertThat(mNachoTextView.getText().toString()).contains(getSummaryText(3));
+    }
+
+    @Test
+    public void testOnFocusChanged_expandsChipsWhenFocusedAndCollapsesThemWhenUnfocused() {
+        // setup
+        View otherView = attach();
+        mNachoTextView.enableChipCollapsing(2);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c", "d", "e"));
+        assertThat(mNachoTextView.getCollapsedChips()).hasSize(3);
+
+        // run
+        mNachoTextView.requestFocus();
+
+        // verify
+        assertThat(mNachoTextView.getAllChips()).hasSize(5);
+        assertThat(mNachoTextView.getCollapsedChips()).isEmpty();
+        assertThat(mNachoTextView.getText().toString()).doesNotContain(getSummaryText(3));
+
+        // run
+        otherView.requestFocus();
+
+        // verify
+        assertThat(mNachoTextView.getAllChips()).hasSize(2);
+        assertThat(getCollapsedChipTexts()).containsExactly("c", "d", "e");
+        assertThat(mNachoTextView.getText().toString()).contains(getSummaryText(3));
+    }
+
+    @Test
+    public void testDisableChipCollapsing_expandsChips() {
+        // setup
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+
+        // run
+        mNachoTextView.disableChipCollapsing();
+
+        // verify
+        assertThat(mNachoTextView.getAllChips()).hasSize(3);
+        assertThat(mNachoTextView.getCollapsedChips()).isEmpty();
+        assertThat(mNachoTextView.getChipAndTokenValues()).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void testClearingCollapsedChips_summaryChipIsNotReportedAsRemoved() {
+        // setup
+        final List<Chip> removedChips = new ArrayList<>();
+        mNachoTextView.setOnChipRemoveListener(new NachoTextView.OnChipRemoveListener() {
+            @Override
+            public void onChipRemove(Chip chip) {
+                removedChips.add(chip);
+            }
+        });
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+        List<Chip> visibleChips = mNachoTextView.getAllChips();
+
+        // run
+        mNachoTextView.getText().clear();
+
+        // verify
+        assertThat(removedChips).containsExactlyElementsOf(visibleChips);
+    }
+
+    @Test
+    public void testSaveInstanceState_collapsedChipsAreRestored() {
+        // setup
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+        NachoTextView restoredView = new NachoTextView(RuntimeEnvironment.application);
+        restoredView.enableChipCollapsing(1);
+
+        // run
+        restoredView.onRestoreInstanceState(mNachoTextView.onSaveInstanceState());
+
+        // verify
+        assertThat(restoredView.getChipValues()).containsExactly("a", "b", "c");
+        assertThat(restoredView.getCollapsedChips()).hasSize(2);
+    }
+
+    @Test
+    public void testSaveInstanceState_summaryChipIsRecreatedFromParcel() {
+        // setup
+        mNachoTextView.enableChipCollapsing(1);
+        mNachoTextView.setTextWithChips(chips("a", "b", "c"));
+        Parcel parcel = Parcel.obtain();
+        mNachoTextView.onSaveInstanceState().writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        Parcelable parcelledState = NachoTextView.SavedState.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        NachoTextView restoredView = new NachoTextView(RuntimeEnvironment.application);
+        restoredView.enableChipCollapsing(1);
+
+        // run
+        restoredView.onRestoreInstanceState(parcelledState);
+
+        // verify
+        assertThat(getCollapsedChipTexts(restoredView)).containsExactly("b", "c");
+        assertThat(restoredView.getText().toString()).contains(getSummaryText(2));
+    }
+
+    @Test
+    public void testSetTextWithChipsIterator_loadsChipsProgressively() {
+        // setup
+        attach();
+        List<ChipInfo> chips = chips("a", "b", "c", "d", "e", "f", "g");
+
+        // run
+        mNachoTextView.setTextWithChips(chips.iterator(), 3);
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "c");
+
+        // run
+        runFrames();
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "c", "d", "e", "f", "g");
+    }
+
+    @Test
+    public void testSetTextWithChipsIterator_settingTextAgainCancelsLoading() {
+        // setup
+        attach();
+        mNachoTextView.setTextWithChips(chips("a", "b", "c", "d", "e", "f", "g").iterator(), 3);
+
+        // run
+        mNachoTextView.setTextWithChips(chips("x"));
+        runFrames();
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("x");
+    }
+
+    @Test
+    public void testSetTextWithChipsIterator_cancelKeepsLoadedChips() {
+        // setup
+        attach();
+        mNachoTextView.setTextWithChips(chips("a", "b", "c", "d", "e", "f", "g").iterator(), 3);
+
+        // run
+        mNachoTextView.cancelChipLoading();
+        runFrames();
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void testSetTextWithChipsIterator_chipsAddedByTheUserStayAfterLoadedChips() {
+        // setup
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attachAndFocus();
+        mNachoTextView.setTextWithChips(chips("a", "b", "c", "d", "e", "f", "g").iterator(), 3);
+
+        // run
+        mNachoTextView.getText().append("typed,");
+        runFrames();
+
+        // verify
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a", "b", "c", "d", "e", "f", "g", "typed");
+    }
+
+    @Test
+    public void testChipStyleSetters_changesAreAppliedOnceBeforeTheNextFrame() {
+        // setup
+        attach();
+        ChipTokenizer chipTokenizer = spyChipTokenizer();
+        runFrames();
+        clearInvocations(chipTokenizer);
+
+        // run
+        mNachoTextView.setChipTextColor(Color.RED);
+        mNachoTextView.setChipCornerRadius(4);
+        mNachoTextView.setChipBackground(ColorStateList.valueOf(Color.BLUE));
+        runFrames();
+
+        // verify
+        ArgumentCaptor<ChipConfiguration> configuration = ArgumentCaptor.forClass(ChipConfiguration.class);
+        verify(chipTokenizer).applyConfiguration(any(Editable.class), configuration.capture());
+        assertThat(configuration.getValue().getChipTextColor()).isEqualTo(Color.RED);
+        assertThat(configuration.getValue().getChipCornerRadius()).isEqualTo(4);
+        assertThat(configuration.getValue().getChipBackground().getDefaultColor()).isEqualTo(Color.BLUE);
+    }
+
+    @Test
+    public void testChipStyleSetters_chipsSetBeforeTheNextFrameUseTheNewConfiguration() {
+        // setup
+        attach();
+        ChipTokenizer chipTokenizer = spyChipTokenizer();
+        runFrames();
+
+        // run
+        mNachoTextView.setChipTextColor(Color.RED);
+        mNachoTextView.setTextWithChips(chips("a"));
+
+        // verify
+        InOrder inOrder = inOrder(chipTokenizer);
+        inOrder.verify(chipTokenizer).applyConfiguration(any(Editable.class), argThat(hasChipTextColor(Color.RED)));
+        inOrder.verify(chipTokenizer).terminateToken(any(CharSequence.class), any());
+    }
+
+    @Test
+    public void testChipStyleSetters_chipsTypedBeforeTheNextFrameUseTheNewConfiguration() {
+        // setup
+        mNachoTextView.addChipTerminator(',', ChipTerminatorHandler.BEHAVIOR_CHIPIFY_TO_TERMINATOR);
+        attach();
+        ChipTokenizer chipTokenizer = spyChipTokenizer();
+        runFrames();
+
+        // run
+        mNachoTextView.setChipTextColor(Color.RED);
+        mNachoTextView.getText().append("a,");
+
+        // verify
+        InOrder inOrder = inOrder(chipTokenizer);
+        inOrder.verify(chipTokenizer).applyConfiguration(any(Editable.class), argThat(hasChipTextColor(Color.RED)));
+        inOrder.verify(chipTokenizer).terminateToken(any(CharSequence.class), any());
+        assertThat(mNachoTextView.getChipValues()).containsExactly("a");
+    }
+
+    @Test
+    public void testOnMeasure_configurationIsOnlyAppliedWhenTheWidthChanges() {
+        // setup
+        ChipTokenizer chipTokenizer = spyChipTokenizer();
+        measure(500);
+        clearInvocations(chipTokenizer);
+
+        // run
+        measure(500);
+        verify(chipTokenizer, never()).applyConfiguration(any(Editable.class), any(ChipConfiguration.class));
+        measure(300);
+
+        // verify
+        int horizontalPadding = mNachoTextView.getCompoundPaddingLeft() + mNachoTextView.getCompoundPaddingRight();
+        verify(chipTokenizer).applyConfiguration(any(Editable.class), argThat(hasMaxAvailableWidth(300 - horizontalPadding)));
+    }
+
+    @Test
+    public void testOnLayout_configurationIsOnlyAppliedWhenTheWidthChanges() {
+        // setup
+        ChipTokenizer chipTokenizer = spyChipTokenizer();
+        measure(500);
+        mNachoTextView.layout(0, 0, 500, 100);
+        clearInvocations(chipTokenizer);
+
+        // run
+        mNachoTextView.layout(0, 0, 500, 200);
+        verify(chipTokenizer, never()).applyConfiguration(any(Editable.class), any(ChipConfiguration.class));
+        mNachoTextView.layout(0, 0, 300, 100);
+
+        // verify
+        int horizontalPadding = mNachoTextView.getCompoundPaddingLeft() + mNachoTextView.getCompoundPaddingRight();
+        verify(chipTokenizer).applyConfiguration(any(Editable.class), argThat(hasMaxAvailableWidth(300 - horizontalPadding)));
+    }
+
+    /**
+     * Types an unterminated token after the chips and places the cursor inside it.
+     *
+     * @return the selection within the text
+     */
+    private int typeToken(String token) {
+        Editable text = mNachoTextView.getText();
+        text.append(token);
+        int selection = text.length() - 1;
+        mNachoTextView.setSelection(selection);
+        return selection;
+    }
+
+    private void assertTokenAndSelectionKept(int selection) {
+        assertThat(mNachoTextView.getTokenValues()).containsExactly("tok");
+        assertThat(mNachoTextView.getText().toString()).endsWith("tok");
+        assertThat(mNachoTextView.getSelectionStart()).isEqualTo(selection);
+        assertThat(mNachoTextView.getSelectionEnd()).isEqualTo(selection);
+    }
+
+    /**
+     * Attaches the text view to an activity, along with another view that can take the focus.
+     *
+     * @return the other view
+     */
+    private View attach() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        LinearLayout layout = new LinearLayout(activity);
+        EditText otherView = new EditText(activity);
+        layout.addView(otherView);
+        layout.addView(mNachoTextView);
+        activity.setContentView(layout);
+        return otherView;
+    }
+
+    private void attachAndFocus() {
+        attach();
+        mNachoTextView.requestFocus();
+    }
+
+    private void paste(String text) {
+        ClipboardManager clipboard = (ClipboardManager) RuntimeEnvironment.application.getSystemService(Context.CLIPBOARD_SERVICE);
+        clipboard.setPrimaryClip(ClipData.newPlainText(null, text));
+        mNachoTextView.setSelection(mNachoTextView.getText().length());
+        mNachoTextView.onTextContextMenuItem(android.R.id.paste);
+    }
+
+    private ChipTokenizer spyChipTokenizer() {
+        ChipTokenizer chipTokenizer = spy(new SpanChipTokenizer<>(RuntimeEnvironment.application, new ChipSpanChipCreator(), ChipSpan.class));
+        mNachoTextView.setChipTokenizer(chipTokenizer);
+        return chipTokenizer;
+    }
+
+    private void measure(int width) {
+        mNachoTextView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+    }
+
+    private static ArgumentMatcher<ChipConfiguration> hasChipTextColor(final int chipTextColor) {
+        return new ArgumentMatcher<ChipConfiguration>() {
+            @Override
+            public boolean matches(ChipConfiguration configuration) {
+                return configuration.getChipTextColor() == chipTextColor;
+            }
+        };
+    }
+
+    private static ArgumentMatcher<ChipConfiguration> hasMaxAvailableWidth(final int maxAvailableWidth) {
+        return new ArgumentMatcher<ChipConfiguration>() {
+            @Override
+            public boolean matches(ChipConfiguration configuration) {
+                return configuration.getMaxAvailableWidth() == maxAvailableWidth;
+            }
+        };
+    }
+
+    private static Executor queuingExecutor(final List<Runnable> tasks) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                tasks.add(command);
+            }
+        };
+    }
+
+    /**
+     * Runs the queued background tasks and then the main thread tasks they posted.
+     */
+    private static void runTasks(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        tasks.clear();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static String getSummaryText(int collapsedChipCount) {
+        return RuntimeEnvironment.application.getResources()
+                .getQuantityString(R.plurals.chip_collapsed_summary, collapsedChipCount, collapsedChipCount);
+    }
+
+    /**
+     * Runs the main thread until all of the pending frames and tasks have run.
+     */
+    private static void runFrames() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+
+    private List<String> getCollapsedChipTexts() {
+        return getCollapsedChipTexts(mNachoTextView);
+    }
+
+    private static List<String> getCollapsedChipTexts(NachoTextView nachoTextView) {
+        List<String> texts = new ArrayList<>();
+        for (ChipInfo chip : nachoTextView.getCollapsedChips()) {
+            texts.add(chip.getText().toString());
+        }
+        return texts;
+    }
+
+    private static List<ChipInfo> chips(String... texts) {
+        List<ChipInfo> chips = new ArrayList<>(texts.length);
+        for (String text : texts) {
+            chips.add(new ChipInfo(text, null));
+        }
+        return chips;
+    }
+}
@@ -2,14 +2,22 @@ package com.hootsuite.nachos;
 
 import android.content.Context;
 import android.text.Editable;
+import android.text.NoCopySpan;
+import android.text.Selection;
+import android.text.SpanWatcher;
+import android.text.Spannable;
 import android.text.SpannableString;
 import android.text.SpannableStringBuilder;
 import android.text.Spanned;
+import android.text.TextWatcher;
+import android.text.style.UpdateLayout;
 import android.util.Pair;
 
 import com.hootsuite.nachos.chip.Chip;
 import com.hootsuite.nachos.chip.ChipCreator;
+import com.hootsuite.nachos.chip.ChipInfo;
 import com.hootsuite.nachos.tokenizer.SpanChipTokenizer;
+import com.hootsuite.nachos.tokenizer.TokenRanges;
 
 import junit.framework.TestCase;
 
@@ -21,6 +29,8 @@ import org.mockito.stubbing.Answer;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -141,6 +151,77 @@ public class SpanChipTokenizerTest extends TestCase {
         verify(mMockChipCreator, times(TEST_CHIP_VALUES_ALL_VALID.length)).createChip(any(Context.class), any(Chip.class));
     }
 
+    @Test
+    public void testApplyConfiguration_multipleChipsInPlace() {
+        // setup
+        SpannableStringBuilder testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+        SpannableStringBuilder expectedText = new SpannableStringBuilder(testText.toString());
+        Chip[] existingChips = mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+        ChipConfiguration testConfiguration = createTestChipConfiguration();
+        when(mMockChipCreator.canConfigureInPlace(any(Chip.class))).thenReturn(true);
+
+        // run
+        mSpanChipTokenizer.applyConfiguration(testText, testConfiguration);
+
+        // verify
+        assertThat(testText.toString()).isEqualTo(expectedText.toString());
+        assertThat(mSpanChipTokenizer.findAllChips(0, testText.length(), testText)).containsExactly(existingChips);
+        verify(mMockChipCreator, never()).createChip(any(Context.class), any(Chip.class));
+        verify(mMockChipCreator, times(TEST_CHIP_VALUES_ALL_VALID.length)).configureChip(any(Chip.class), any(ChipConfiguration.class));
+    }
+
+    @Test
+    public void testApplyConfiguration_inPlaceReflowsAllTextAtOncePerConfiguration() {
+        // setup
+        SpannableStringBuilder testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+        when(mMockChipCreator.canConfigureInPlace(any(Chip.class))).thenReturn(true);
+        // Records the ranges that a layout would reflow, the same way DynamicLayout does for spans that affect layout
+        final List<Integer> reflowedLengths = new ArrayList<>();
+        testText.setSpan(new SpanWatcher() {
+            @Override
+            public void onSpanAdded(Spannable text, Object what, int start, int end) {
+                if (what instanceof UpdateLayout) {
+                    reflowedLengths.add(end - start);
+                }
+            }
+
+            @Override
+            public void onSpanRemoved(Spannable text, Object what, int start, int end) {
+                if (what instanceof UpdateLayout) {
+                    reflowedLengths.add(end - start);
+                }
+            }
+
+            @Override
+            public void onSpanChanged(Spannable text, Object what, int ostart, int oend, int nstart, int nend) {
+                if (what instanceof UpdateLayout) {
+                    reflowedLengths.add(oend - ostart);
+                    reflowedLengths.add(nend - nstart);
+                }
+            }
+        }, 0, testText.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        for (int i = 0; i < 3; i++) {
+            reflowedLengths.clear();
+
+            // run
+            mSpanChipTokenizer.applyConfiguration(testText, createTestChipConfiguration());
+
+            // verify
+            int fullReflowCount = 0;
+            for (int reflowedLength : reflowedLengths) {
+                if (reflowedLength == testText.length()) {
+                    fullReflowCount++;
+                } else {
+                    assertThat(reflowedLength).isEqualTo(0);
+                }
+            }
+            // Once when the reflow span is added and once when it is removed
+            assertThat(fullReflowCount).isEqualTo(2);
+            assertThat(testText.getSpans(0, testText.length(), UpdateLayout.class)).isEmpty();
+        }
+    }
+
     @Test
     public void testFindTokenStart_emptyString() {
         // setup
@@ -428,6 +509,37 @@ public class SpanChipTokenizerTest extends TestCase {
         assertThat(terminatedToken.toString()).isEqualTo(manualCreateChipText(SINGLE_TOKEN).toString());
     }
 
+    @Test
+    public void testTerminateTokens() {
+        // setup
+        Object data = new Object();
+        List<ChipInfo> chipInfos = new ArrayList<>();
+        chipInfos.add(new ChipInfo(SINGLE_TOKEN, null));
+        chipInfos.add(new ChipInfo(" " + SINGLE_TOKEN_2 + " ", data));
+        chipInfos.add(new ChipInfo(SINGLE_TOKEN_3, null));
+
+        // run
+        Spanned terminatedTokens = new SpannableString(mSpanChipTokenizer.terminateTokens(chipInfos));
+
+        // verify
+        String expectedText = manualCreateChipText(SINGLE_TOKEN) + manualCreateChipText(SINGLE_TOKEN_2) + manualCreateChipText(SINGLE_TOKEN_3);
+        assertThat(terminatedTokens.toString()).isEqualTo(expectedText);
+        Chip[] chips = mSpanChipTokenizer.findAllChips(0, terminatedTokens.length(), terminatedTokens);
+        assertThat(chips).hasSize(3);
+        assertThat(chips[1].getText()).isEqualTo(SINGLE_TOKEN_2);
+        assertThat(chips[1].getData()).isSameAs(data);
+        assertThat(terminatedTokens.getSpanStart(chips[1])).isEqualTo(manualCreateChipText(SINGLE_TOKEN).length());
+    }
+
+    @Test
+    public void testTerminateTokens_emptyList() {
+        // run
+        CharSequence terminatedTokens = mSpanChipTokenizer.terminateTokens(new ArrayList<ChipInfo>());
+
+        // verify
+        assertThat(terminatedTokens.toString()).isEmpty();
+    }
+
     @Test
     public void testFindAllTokens() {
         // setup
@@ -464,6 +576,98 @@ public class SpanChipTokenizerTest extends TestCase {
         assertThat(tokenIndexes).hasSize(TEST_TOKENS_ONE_WHITESPACE.length - 1);
     }
 
+    @Test
+    public void testFindAllTokens_lastToFirst() {
+        // setup
+        CharSequence testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+
+        // run
+        List<Pair<Integer, Integer>> tokenIndexes = mSpanChipTokenizer.findAllTokens(testText);
+
+        // verify
+        assertThat(tokenIndexes).hasSize(TEST_TOKENS_ALL_VALID.length);
+        for (int i = 0; i < tokenIndexes.size(); i++) {
+            Pair<Integer, Integer> tokenIndex = tokenIndexes.get(i);
+            CharSequence token = testText.subSequence(tokenIndex.first, tokenIndex.second);
+            assertThat(token.toString()).isEqualTo(TEST_TOKENS_ALL_VALID[TEST_TOKENS_ALL_VALID.length - 1 - i].toString());
+        }
+    }
+
+    @Test
+    public void testFindAllTokenRanges_inTextOrder() {
+        // setup
+        CharSequence testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+
+        // run
+        TokenRanges tokenRanges = mSpanChipTokenizer.findAllTokenRanges(testText);
+
+        // verify
+        assertThat(tokenRanges.size()).isEqualTo(TEST_TOKENS_ALL_VALID.length);
+        for (int i = 0; i < tokenRanges.size(); i++) {
+            CharSequence token = testText.subSequence(tokenRanges.getStart(i), tokenRanges.getEnd(i));
+            assertThat(token.toString()).isEqualTo(TEST_TOKENS_ALL_VALID[i].toString());
+        }
+    }
+
+    @Test
+    public void testFindAllTokenRanges_matchesFindTokenStartAndEnd() {
+        // setup
+        CharSequence testText = createTestText(TEST_TOKENS_ONE_WHITESPACE, false, TEST_CHIP_VALUES_ONE_WHITESPACE, true);
+
+        // run
+        TokenRanges tokenRanges = mSpanChipTokenizer.findAllTokenRanges(testText);
+
+        // verify
+        assertThat(tokenRanges.size()).isEqualTo(TEST_TOKENS_ONE_WHITESPACE.length - 1);
+        for (int i = 0; i < tokenRanges.size(); i++) {
+            int start = tokenRanges.getStart(i);
+            assertThat(mSpanChipTokenizer.findTokenStart(testText, start)).isEqualTo(start);
+            assertThat(mSpanChipTokenizer.findTokenEnd(testText, start)).isEqualTo(tokenRanges.getEnd(i));
+        }
+    }
+
+    @Test
+    public void testFindAllTokenRanges_largeText() {
+        // setup
+        int tokenCount = 10000;
+        SpannableStringBuilder testText = new SpannableStringBuilder();
+        for (int i = 0; i < tokenCount; i++) {
+            testText.append(SINGLE_TOKEN).append(manualCreateChipText(SINGLE_TOKEN_2));
+        }
+
+        // run
+        TokenRanges tokenRanges = mSpanChipTokenizer.findAllTokenRanges(testText);
+
+        // verify
+        assertThat(tokenRanges.size()).isEqualTo(tokenCount);
+        assertThat(tokenRanges.getStart(tokenCount - 1)).isLessThan(testText.length());
+    }
+
+    @Test
+    public void testHasUnterminatedTokens() {
+        // setup
+        CharSequence testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+
+        // run
+        boolean hasUnterminatedTokens = mSpanChipTokenizer.hasUnterminatedTokens(testText);
+
+        // verify
+        assertThat(hasUnterminatedTokens).isTrue();
+    }
+
+    @Test
+    public void testHasUnterminatedTokens_onlyChipsAndWhitespace() {
+        // setup
+        CharSequence testText = createTestText(TEST_CHIP_VALUES_ALL_VALID, true, new CharSequence[] {WHITESPACE, WHITESPACE, WHITESPACE, WHITESPACE, WHITESPACE, WHITESPACE}, false);
+
+        // run
+        boolean hasUnterminatedTokens = mSpanChipTokenizer.hasUnterminatedTokens(testText);
+
+        // verify
+        assertThat(hasUnterminatedTokens).isFalse();
+        assertThat(mSpanChipTokenizer.hasUnterminatedTokens(EMPTY_STRING)).isFalse();
+    }
+
     @Test
     public void testTerminateAllTokens() {
         // setup
@@ -477,6 +681,92 @@ public class SpanChipTokenizerTest extends TestCase {
         assertThat(testText.toString()).isEqualTo(expectedText.toString());
     }
 
+    @Test
+    public void testTerminateAllTokens_keepsExistingChips() {
+        // setup
+        Editable testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+        Chip[] existingChips = mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+
+        // run
+        mSpanChipTokenizer.terminateAllTokens(testText);
+
+        // verify
+        Chip[] chips = mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+        assertThat(chips).hasSize(TEST_TOKENS_ALL_VALID.length + TEST_CHIP_VALUES_ALL_VALID.length);
+        assertThat(chips).contains(existingChips);
+    }
+
+    @Test
+    public void testTerminateAllTokens_keepsSelection() {
+        // setup
+        Editable testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+        Selection.setSelection(testText, testText.length());
+
+        // run
+        mSpanChipTokenizer.terminateAllTokens(testText);
+
+        // verify
+        assertThat(Selection.getSelectionStart(testText)).isEqualTo(testText.length());
+        assertThat(Selection.getSelectionEnd(testText)).isEqualTo(testText.length());
+    }
+
+    @Test
+    public void testTerminateAllTokens_watchersOnlySeeTheText() {
+        // setup
+        final Editable testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+        Selection.setSelection(testText, testText.length());
+        final int[] foreignCallbackCount = new int[1];
+        final int[] textChangedCount = new int[1];
+        // Like the watcher a TextView attaches to its text, this watches both the text and its spans
+        testText.setSpan(new ChangeWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                checkText(s);
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                checkText(s);
+                textChangedCount[0]++;
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                checkText(s);
+            }
+
+            @Override
+            public void onSpanAdded(Spannable text, Object what, int start, int end) {
+                checkText(text);
+            }
+
+            @Override
+            public void onSpanRemoved(Spannable text, Object what, int start, int end) {
+                checkText(text);
+            }
+
+            @Override
+            public void onSpanChanged(Spannable text, Object what, int ostart, int oend, int nstart, int nend) {
+                checkText(text);
+            }
+
+            private void checkText(CharSequence text) {
+                if (text != testText) {
+                    foreignCallbackCount[0]++;
+                }
+            }
+        }, 0, testText.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        // run
+        mSpanChipTokenizer.terminateAllTokens(testText);
+
+        // verify
+        assertThat(foreignCallbackCount[0]).isEqualTo(0);
+        assertThat(textChangedCount[0]).isEqualTo(1);
+        assertThat(testText.getSpans(0, testText.length(), ChangeWatcher.class)).hasSize(1);
+        assertThat(Selection.getSelectionStart(testText)).isEqualTo(testText.length());
+    }
+
     @Test
     public void testFindChipStart_singleChip() {
         // setup
@@ -628,6 +918,61 @@ public class SpanChipTokenizerTest extends TestCase {
         assertThat(chips).isEmpty();
     }
 
+    @Test
+    public void testFindAllChips_inTextOrder() {
+        // setup
+        SpannableStringBuilder testText = new SpannableStringBuilder(createChipText(SINGLE_TOKEN_2));
+        mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+        // Insert chips before the existing one after the text has been indexed
+        testText.insert(0, createChipText(SINGLE_TOKEN));
+        testText.append(createChipText(SINGLE_TOKEN_3));
+
+        // run
+        Chip[] chips = mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+
+        // verify
+        assertThat(chips).hasSize(3);
+        assertThat(chips[0].getText()).isEqualTo(SINGLE_TOKEN);
+        assertThat(chips[1].getText()).isEqualTo(SINGLE_TOKEN_2);
+        assertThat(chips[2].getText()).isEqualTo(SINGLE_TOKEN_3);
+    }
+
+    @Test
+    public void testFindAllChips_range() {
+        // setup
+        SpannableStringBuilder testText = new SpannableStringBuilder(createChipText(SINGLE_TOKEN));
+        testText.append(SINGLE_TOKEN_2);
+        int secondChipStart = testText.length();
+        testText.append(createChipText(SINGLE_TOKEN_3));
+
+        // run
+        Chip[] tokenChips = mSpanChipTokenizer.findAllChips(secondChipStart - 1, secondChipStart, testText);
+        Chip[] boundaryChips = mSpanChipTokenizer.findAllChips(secondChipStart, secondChipStart, testText);
+        Chip[] lastChips = mSpanChipTokenizer.findAllChips(secondChipStart, testText.length(), testText);
+
+        // verify
+        assertThat(tokenChips).isEmpty();
+        assertThat(boundaryChips).hasSize(1);
+        assertThat(boundaryChips[0].getText()).isEqualTo(SINGLE_TOKEN_3);
+        assertThat(lastChips).hasSize(1);
+        assertThat(lastChips[0].getText()).isEqualTo(SINGLE_TOKEN_3);
+    }
+
+    @Test
+    public void testCountChips() {
+        // setup
+        SpannableStringBuilder testText = createTestText(TEST_TOKENS_ALL_VALID, false, TEST_CHIP_VALUES_ALL_VALID, true);
+        int initialCount = mSpanChipTokenizer.countChips(testText);
+        mSpanChipTokenizer.deleteChip(getSingleChip(testText), testText);
+
+        // run
+        int count = mSpanChipTokenizer.countChips(testText);
+
+        // verify
+        assertThat(initialCount).isEqualTo(TEST_CHIP_VALUES_ALL_VALID.length);
+        assertThat(count).isEqualTo(TEST_CHIP_VALUES_ALL_VALID.length - 1);
+    }
+
     @Test
     public void testRevertChipToToken_singleChip() {
         // setup
@@ -744,6 +1089,57 @@ public class SpanChipTokenizerTest extends TestCase {
         assertThat(testText.toString()).isEqualTo(expectedText.toString());
     }
 
+    @Test
+    public void testDeleteChips_deletesEachRunOfAdjacentChipsAtOnce() {
+        // setup
+        SpannableStringBuilder testText = new SpannableStringBuilder();
+        testText.append(createChipText(SINGLE_TOKEN));
+        testText.append(createChipText(SINGLE_TOKEN_2));
+        testText.append(SINGLE_CHARACTER);
+        testText.append(createChipText(SINGLE_TOKEN_3));
+        Chip[] chips = mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+        final int[] editCount = new int[1];
+        testText.setSpan(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                editCount[0]++;
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        }, 0, testText.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        // run
+        mSpanChipTokenizer.deleteChips(Arrays.asList(chips[2], chips[0], chips[1]), testText);
+
+        // verify
+        assertThat(testText.toString()).isEqualTo(SINGLE_CHARACTER.toString());
+        assertThat(testText.getSpans(0, testText.length(), Chip.class)).isEmpty();
+        assertThat(editCount[0]).isEqualTo(2);
+    }
+
+    @Test
+    public void testFindAllChips_chipIndexIsNotCopiedWithText() {
+        // setup
+        SpannableStringBuilder testText = new SpannableStringBuilder(singleTokenChipified);
+        testText.append(SINGLE_TOKEN_2);
+        mSpanChipTokenizer.findAllChips(0, testText.length(), testText);
+
+        // run
+        SpannableStringBuilder copy = new SpannableStringBuilder(testText);
+        SpannableString partialCopy = new SpannableString(testText.subSequence(0, singleTokenChipified.length()));
+
+        // verify
+        assertThat(copy.getSpans(0, copy.length(), NoCopySpan.class)).isEmpty();
+        assertThat(partialCopy.getSpans(0, partialCopy.length(), NoCopySpan.class)).isEmpty();
+        assertThat(mSpanChipTokenizer.findAllChips(0, copy.length(), copy)).hasSize(1);
+    }
+
     private ChipConfiguration createTestChipConfiguration() {
         return new ChipConfiguration(-1, null, -1, -1, -1, -1, -1, -1);
     }
@@ -768,4 +1164,7 @@ public class SpanChipTokenizerTest extends TestCase {
     private static CharSequence manualCreateChipText(CharSequence text) {
         return " " + SpanChipTokenizer.CHIP_SPAN_SEPARATOR + text + SpanChipTokenizer.CHIP_SPAN_SEPARATOR + " ";
     }
+
+    private interface ChangeWatcher extends TextWatcher, SpanWatcher {
+    }
 }
@@ -0,0 +1,67 @@
+package com.hootsuite.nachos;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+import com.hootsuite.nachos.chip.TextChipSpan;
+import com.hootsuite.nachos.chip.TextChipSpanChipCreator;
+
+import junit.framework.TestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(CustomRobolectricRunner.class)
+@Config(sdk = TestConfig.SDK_VERSION)
+public class TextChipSpanChipCreatorTest extends TestCase {
+
+    private static final String SAMPLE_TEXT = "abcde";
+
+    private Context mContext;
+    private TextChipSpanChipCreator mChipCreator;
+
+    @Before
+    public void setup() {
+        mContext = RuntimeEnvironment.application.getApplicationContext();
+        mChipCreator = new TextChipSpanChipCreator();
+    }
+
+    @Test
+    public void testCreateChip_sharesStyle() {
+        // run
+        Object data = new Object();
+        TextChipSpan first = mChipCreator.createChip(mContext, SAMPLE_TEXT, data);
+        TextChipSpan second = mChipCreator.createChip(mContext, first);
+
+        // verify
+        assertThat(second.getText().toString()).isEqualTo(SAMPLE_TEXT);
+        assertThat(second.getData()).isSameAs(data);
+        assertThat(second.getStyle()).isSameAs(first.getStyle());
+    }
+
+    @Test
+    public void testConfigureChip_ellipsizesAllChips() {
+        // setup
+        TextChipSpan first = mChipCreator.createChip(mContext, SAMPLE_TEXT, null);
+        TextChipSpan second = mChipCreator.createChip(mContext, SAMPLE_TEXT, null);
+        TextPaint paint = new TextPaint();
+        int fullWidth = first.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+        second.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt());
+        ChipConfiguration chipConfiguration = new ChipConfiguration(-1, null, -1, Color.TRANSPARENT, -1, -1, -1, fullWidth / 2);
+
+        // run
+        mChipCreator.configureChip(first, chipConfiguration);
+        mChipCreator.configureChip(second, chipConfiguration);
+
+        // verify
+        assertThat(first.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt())).isEqualTo(fullWidth / 2);
+        assertThat(second.getSize(paint, SAMPLE_TEXT, 0, SAMPLE_TEXT.length(), new Paint.FontMetricsInt())).isEqualTo(fullWidth / 2);
+    }
+}